@@ -0,0 +1,36 @@
+package com.emocional.diary.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuración del pool de workers que completa el análisis de IA en segundo plano.
+ * El pool y su cola están acotados: si se llenan, la entrada queda PENDING y la
+ * recuperación periódica la vuelve a encolar más tarde.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncAnalysisConfig {
+
+    @Value("${diary.analysis.async.pool-size:4}")
+    private int poolSize;
+
+    @Value("${diary.analysis.async.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Bean(name = "analysisExecutor")
+    public ThreadPoolTaskExecutor analysisExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("analysis-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,67 @@
+package com.emocional.diary.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker alrededor del análisis de sentimientos con Gemini.
+ * Se abre cuando la tasa de errores o la de llamadas lentas supera el umbral, y mientras
+ * está abierto las llamadas fallan de inmediato sin llegar a Gemini.
+ * El estado y las métricas se publican en /actuator/metrics (resilience4j.circuitbreaker.*).
+ */
+@Configuration
+public class GeminiCircuitBreakerConfig {
+
+    @Value("${google.ai.gemini.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${google.ai.gemini.circuit-breaker.slow-call-rate-threshold:50}")
+    private float slowCallRateThreshold;
+
+    @Value("${google.ai.gemini.circuit-breaker.slow-call-duration-ms:8000}")
+    private long slowCallDurationMs;
+
+    @Value("${google.ai.gemini.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${google.ai.gemini.circuit-breaker.minimum-calls:10}")
+    private int minimumNumberOfCalls;
+
+    @Value("${google.ai.gemini.circuit-breaker.wait-in-open-ms:30000}")
+    private long waitDurationInOpenStateMs;
+
+    @Value("${google.ai.gemini.circuit-breaker.half-open-calls:3}")
+    private int permittedCallsInHalfOpenState;
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(Duration.ofMillis(waitDurationInOpenStateMs))
+                .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build();
+
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public CircuitBreaker geminiCircuitBreaker(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return circuitBreakerRegistry.circuitBreaker("gemini");
+    }
+}
@@ -81,4 +81,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Las respuestas asíncronas (SSE, streaming) vuelven a pasar por la cadena de filtros en un
+     * dispatch ASYNC sin contexto de seguridad; se vuelve a validar el token para autorizarlo.
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
 }
@@ -0,0 +1,101 @@
+package com.emocional.diary.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Enrutamiento de lecturas a réplicas de PostgreSQL. Solo se activa si diary.datasource.replica.urls tiene valor;
+ * sin réplicas el DataSource es el de Spring Boot.
+ * Las transacciones @Transactional(readOnly = true) marcan su conexión como read-only antes de usarla y
+ * LazyConnectionDataSourceProxy, que retrasa la conexión física hasta la primera sentencia, la pide entonces
+ * a ReplicaRoutingDataSource; el resto (escrituras, Flyway, trabajo sin transacción) va al primario.
+ */
+@Configuration
+@ConditionalOnExpression("!'${diary.datasource.replica.urls:}'.isBlank()")
+public class ReadReplicaDataSourceConfig {
+
+    @Value("${diary.datasource.replica.urls}")
+    private String replicaUrls;
+
+    @Value("${diary.datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${diary.datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${diary.datasource.replica.maximum-pool-size:10}")
+    private int replicaPoolSize;
+
+    // Corto a propósito: si la réplica no entrega conexión enseguida, es más barato leer del primario
+    @Value("${diary.datasource.replica.connection-timeout-ms:250}")
+    private long replicaConnectionTimeoutMs;
+
+    @Value("${diary.datasource.replica.failure-cooldown-ms:10000}")
+    private long replicaFailureCooldownMs;
+
+    @Value("${diary.datasource.read-your-writes-window-ms:5000}")
+    private long readYourWritesWindowMs;
+
+    /**
+     * Pool del primario, configurado con las propiedades spring.datasource.* de siempre.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(Duration.ofMillis(readYourWritesWindowMs));
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReadYourWritesTracker readYourWritesTracker,
+                                                             MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        List<String> urls = Arrays.stream(replicaUrls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("diary-replica-" + i);
+            replica.setJdbcUrl(urls.get(i));
+            replica.setUsername(replicaUsername);
+            replica.setPassword(replicaPassword);
+            replica.setDriverClassName(primaryDataSource.getDriverClassName());
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setConnectionTimeout(replicaConnectionTimeoutMs);
+            replica.setReadOnly(true);
+            // No bloquear el arranque si una réplica está caída: se usa el primario mientras tanto
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWritesTracker,
+                Duration.ofMillis(replicaFailureCooldownMs), meterRegistry);
+    }
+
+    /**
+     * DataSource que usan JPA, JdbcTemplate y Flyway.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaRoutingDataSource);
+        return proxy;
+    }
+}
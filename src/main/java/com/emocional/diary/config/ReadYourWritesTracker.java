@@ -0,0 +1,55 @@
+package com.emocional.diary.config;
+
+import com.emocional.diary.event.DiaryEntryChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Recuerda qué usuarios escribieron hace menos de la ventana configurada, para que sus lecturas
+ * vayan al primario y no vean una réplica que todavía no ha aplicado su escritura.
+ * El usuario de la lectura se toma del contexto de seguridad (el principal que deja JwtAuthenticationFilter).
+ */
+public class ReadYourWritesTracker {
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDiaryEntryChanged(DiaryEntryChangedEvent event) {
+        recentWriters.put(event.userId(), Boolean.TRUE);
+    }
+
+    /**
+     * @return true si el usuario autenticado de la petición actual escribió dentro de la ventana.
+     */
+    public boolean currentUserWroteRecently() {
+        Long userId = currentUserId();
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication.getPrincipal() == null) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof Long userId) {
+            return userId;
+        }
+        try {
+            return Long.parseLong(authentication.getName());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.emocional.diary.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * DataSource de solo lectura: reparte las conexiones entre las réplicas en round-robin.
+ * Usa el primario si el usuario actual escribió hace poco (read-your-writes) o si ninguna réplica
+ * entrega conexión. Una réplica que falla se salta durante failureCooldown, para no pagar el
+ * connectionTimeout de su pool en cada lectura mientras está caída.
+ * Las lecturas por destino se publican en la métrica diary.datasource.reads.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicInteger next = new AtomicInteger();
+    private final long failureCooldownNanos;
+    // System.nanoTime() hasta el que se salta cada réplica (0 = disponible)
+    private final AtomicLongArray unavailableUntil;
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<HikariDataSource> replicas,
+                                    ReadYourWritesTracker readYourWritesTracker,
+                                    Duration failureCooldown,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.failureCooldownNanos = failureCooldown.toNanos();
+        this.unavailableUntil = new AtomicLongArray(this.replicas.size());
+        this.replicaReads = readsCounter(meterRegistry, "replica");
+        this.primaryReads = readsCounter(meterRegistry, "primary-read-your-writes");
+        this.fallbackReads = readsCounter(meterRegistry, "primary-fallback");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readYourWritesTracker.currentUserWroteRecently()) {
+            primaryReads.increment();
+            return primary.getConnection();
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            long until = unavailableUntil.get(index);
+            if (until != 0 && System.nanoTime() - until < 0) {
+                continue;
+            }
+            HikariDataSource replica = replicas.get(index);
+            try {
+                Connection connection = replica.getConnection();
+                unavailableUntil.set(index, 0);
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                unavailableUntil.set(index, System.nanoTime() + failureCooldownNanos);
+                log.warn("⚠️ Réplica {} no disponible, se omite durante {} ms: {}",
+                        replica.getPoolName(), failureCooldownNanos / 1_000_000, e.getMessage());
+            }
+        }
+        fallbackReads.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Las réplicas solo tienen las credenciales configuradas; con otras credenciales la lectura va al primario.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        fallbackReads.increment();
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    private static Counter readsCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("diary.datasource.reads")
+                .description("Conexiones de solo lectura entregadas por destino")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
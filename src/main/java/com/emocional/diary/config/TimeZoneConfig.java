@@ -0,0 +1,20 @@
+package com.emocional.diary.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.ZoneId;
+
+/**
+ * Zona horaria de los usuarios del diario, usada para decidir a qué día pertenece una entrada
+ * (columna entry_date y regla de una entrada por día). Si no se configura, la del sistema.
+ */
+@Configuration
+public class TimeZoneConfig {
+
+    @Bean
+    public ZoneId diaryZoneId(@Value("${diary.time-zone:}") String timeZone) {
+        return timeZone == null || timeZone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(timeZone);
+    }
+}
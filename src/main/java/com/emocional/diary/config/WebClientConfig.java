@@ -1,21 +1,89 @@
 package com.emocional.diary.config;
 
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cliente HTTP dedicado a Gemini.
+ * Define un pool de conexiones acotado con desalojo de conexiones inactivas y timeouts de
+ * conexión, lectura, escritura y respuesta, para que una llamada estancada no retenga un hilo
+ * indefinidamente. Se construye sobre el WebClient.Builder de Spring Boot para conservar las
+ * métricas http.client.requests, y el pool publica sus métricas de reactor-netty.
+ */
 @Configuration
 public class WebClientConfig {
 
     @Value("${google.ai.gemini.url}")
     private String geminiUrl;
 
+    @Value("${google.ai.gemini.pool.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${google.ai.gemini.pool.pending-acquire-max-count:200}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${google.ai.gemini.pool.pending-acquire-timeout-ms:5000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${google.ai.gemini.pool.max-idle-time-ms:30000}")
+    private long maxIdleTimeMs;
+
+    @Value("${google.ai.gemini.pool.max-life-time-ms:300000}")
+    private long maxLifeTimeMs;
+
+    @Value("${google.ai.gemini.pool.evict-interval-ms:15000}")
+    private long evictIntervalMs;
+
+    @Value("${google.ai.gemini.timeout.connect-ms:3000}")
+    private int connectTimeoutMs;
+
+    @Value("${google.ai.gemini.timeout.read-ms:60000}")
+    private long readTimeoutMs;
+
+    @Value("${google.ai.gemini.timeout.write-ms:10000}")
+    private long writeTimeoutMs;
+
+    @Value("${google.ai.gemini.timeout.response-ms:60000}")
+    private long responseTimeoutMs;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider geminiConnectionProvider() {
+        return ConnectionProvider.builder("gemini")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofMillis(evictIntervalMs))
+                .metrics(true)
+                .build();
+    }
+
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder()
+    public WebClient geminiWebClient(WebClient.Builder builder, ConnectionProvider geminiConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(geminiConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .doOnConnected(connection -> connection
+                        .addHandlerLast(new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS))
+                        .addHandlerLast(new WriteTimeoutHandler(writeTimeoutMs, TimeUnit.MILLISECONDS)));
+
+        return builder
                 .baseUrl("https://generativelanguage.googleapis.com")
                 .defaultHeader("Content-Type", "application/json")
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,42 @@
 package com.emocional.diary.controller;
 
 import com.emocional.diary.dto.DiaryEntryRequest; // DTO para la creación (asumiendo que DiaryCreateRequest es ahora DiaryEntryRequest)
+import com.emocional.diary.dto.CursorPageResponse;
+import com.emocional.diary.dto.DiaryEntryFilter;
 import com.emocional.diary.dto.DiaryEntryResponse;
+import com.emocional.diary.dto.DiaryEntrySummaryResponse;
+import com.emocional.diary.dto.DiarySearchResult;
+import com.emocional.diary.dto.EntryCursor;
+import com.emocional.diary.dto.ImportResultResponse;
+import com.emocional.diary.dto.SearchCursor;
+import com.emocional.diary.model.AnalysisStatus;
+import com.emocional.diary.model.ExportFormat;
+import com.emocional.diary.model.ImportAnalysisMode;
 
 import com.emocional.diary.service.DiaryEntryService;
+import com.emocional.diary.service.DiaryExportService;
+import com.emocional.diary.service.DiaryImportService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder; // Usamos el patrón de acceso directo para getCurrentUserId
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 /**
@@ -29,6 +51,8 @@ import jakarta.validation.Valid;
 public class DiaryEntryController {
 
     private final DiaryEntryService diaryEntryService;
+    private final DiaryImportService diaryImportService;
+    private final DiaryExportService diaryExportService;
     // Se elimina la inyección de DiaryEntryMapper aquí.
 
     /**
@@ -62,18 +86,23 @@ public class DiaryEntryController {
     /**
      * Endpoint para crear una nueva entrada de diario.
      * @param request DTO con el contenido del diario y el check-in del usuario.
-     * @return 201 Created con la entrada analizada completa (DTO).
+     * La respuesta es asíncrona: el hilo de la petición se libera mientras Gemini analiza la entrada.
+     * @return 201 Created con la entrada analizada completa (DTO), o 202 Accepted si el análisis
+     *         de IA quedó pendiente en segundo plano.
      */
     @PostMapping
-    public ResponseEntity<DiaryEntryResponse> createDiaryEntry(
+    public Mono<ResponseEntity<DiaryEntryResponse>> createDiaryEntry(
         @Valid @RequestBody DiaryEntryRequest request) { // Usamos DiaryEntryRequest para simplificar
             
         Long userId = getCurrentUserId();
         
-        // El servicio lanzará IllegalStateException, ExternalServiceException, o IllegalArgumentException.
+        // El Mono fallará con IllegalStateException, ExternalServiceException, o IllegalArgumentException.
         // El @ControllerAdvice las interceptará automáticamente.
-        DiaryEntryResponse response = diaryEntryService.createEntry(userId, request);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+        return diaryEntryService.createEntry(userId, request)
+                .map(response -> {
+                    HttpStatus status = response.getAnalysisStatus() == AnalysisStatus.PENDING ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+                    return new ResponseEntity<>(response, status);
+                });
         
 //        try {
 //            // El servicio DEBE devolver el DTO ya mapeado.
@@ -95,10 +124,179 @@ public class DiaryEntryController {
     }
     
     /**
-     * GET /api/v1/diary: Lista todas las entradas del usuario autenticado ordenado por fecha.
-     * El servicio devuelve la lista de DTOs, el Controller la retorna directamente.
+     * POST /api/v1/diary/import: Importa en bloque las entradas de otra aplicación de diario.
+     * El cuerpo es NDJSON (application/x-ndjson), un DiaryImportRecord por línea, y se procesa en streaming.
+     * Las entradas de un día que ya tiene entrada se omiten; las líneas inválidas se informan en la respuesta.
+     * @param analysis skip (por defecto: se guardan los campos de IA que traiga cada línea) o defer (quedan
+     *                 PENDING y las analiza la recuperación periódica).
+     * @return 200 OK con los totales de la importación.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportResultResponse> importDiaryEntries(
+        @RequestParam(value = "analysis", defaultValue = "skip") String analysis,
+        HttpServletRequest request) throws IOException {
+
+        Long userId = getCurrentUserId();
+
+        ImportAnalysisMode analysisMode;
+        try {
+            analysisMode = ImportAnalysisMode.valueOf(analysis.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El parámetro analysis debe ser skip o defer.", e);
+        }
+
+        return ResponseEntity.ok(diaryImportService.importNdjson(userId, request.getInputStream(), analysisMode));
+    }
+
+    /**
+     * GET /api/v1/diary/export: Descarga todas las entradas del usuario autenticado, de la más antigua a la más
+     * reciente. La respuesta se escribe en streaming mientras se leen las entradas, sin cargarlas en memoria.
+     * @param format ndjson (por defecto; reimportable con POST /api/v1/diary/import) o csv.
+     * @param gzip Si es true, el fichero se descarga comprimido (.gz).
+     * @return 200 OK con el fichero como adjunto.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportDiaryEntries(
+        @RequestParam(value = "format", defaultValue = "ndjson") String format,
+        @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+
+        Long userId = getCurrentUserId();
+
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El parámetro format debe ser ndjson o csv.", e);
+        }
+
+        String filename = "diario." + exportFormat.name().toLowerCase(Locale.ROOT) + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : exportFormat == ExportFormat.CSV ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.APPLICATION_NDJSON;
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                // syncFlush: lo que el servicio vacía (la primera fila) sale comprimido sin esperar al final
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 8192, true);
+                diaryExportService.export(userId, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                diaryExportService.export(userId, exportFormat, out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    /**
+     * GET /api/v1/diary: Lista las entradas del usuario autenticado, de la más reciente a la más
+     * antigua, paginadas por cursor. Admite filtros opcionales combinables (emotion, worry,
+     * minIntensity/maxIntensity, minStress/maxStress, minMood/maxMood, from/to), p. ej.
+     * ?emotion=ansiedad&minStress=7&from=2025-09-01&to=2025-09-30. El cursor solo es válido con los mismos filtros.
+     * @param filter Filtros del listado, leídos de los parámetros de la petición.
+     * @param cursor nextCursor de la página anterior; se omite para pedir la primera página.
+     * @param limit Tamaño de página (por defecto diary.listing.default-page-size, máximo diary.listing.max-page-size).
+     * @return La página de entradas con el cursor de la siguiente.
      */
     @GetMapping
+    public ResponseEntity<CursorPageResponse<DiaryEntryResponse>> getDiaryEntriesPage(
+        DiaryEntryFilter filter,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "limit", required = false) Integer limit) {
+
+        Long userId = getCurrentUserId();
+        validateFilter(filter);
+        return ResponseEntity.ok(diaryEntryService.getEntriesPage(userId, filter, parseCursor(cursor, EntryCursor::decode), limit));
+    }
+
+    /**
+     * GET /api/v1/diary?view=summary: Listado del historial con solo fecha, ánimo, estrés, emoción y una
+     * vista previa del texto (diary.listing.preview-length caracteres), paginado por cursor igual que el
+     * listado completo y con los mismos filtros. El texto completo y el análisis de IA se piden con GET /api/v1/diary/{id}.
+     * @param filter Filtros del listado, leídos de los parámetros de la petición.
+     * @param cursor nextCursor de la página anterior; se omite para pedir la primera página.
+     * @param limit Tamaño de página.
+     * @return La página de resúmenes con el cursor de la siguiente.
+     */
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<CursorPageResponse<DiaryEntrySummaryResponse>> getDiaryEntrySummariesPage(
+        DiaryEntryFilter filter,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "limit", required = false) Integer limit) {
+
+        Long userId = getCurrentUserId();
+        validateFilter(filter);
+        return ResponseEntity.ok(diaryEntryService.getEntrySummariesPage(userId, filter, parseCursor(cursor, EntryCursor::decode), limit));
+    }
+
+    /**
+     * GET /api/v1/diary/search?q=...: Busca en el contenido, el resumen de IA y la preocupación de las
+     * entradas del usuario (texto completo en español: "trabajo" también encuentra "trabajando").
+     * Admite la sintaxis de buscador: "frase exacta", -excluir, OR. Resultados por relevancia, paginados por cursor.
+     * @param q Texto de búsqueda (obligatorio).
+     * @param cursor nextCursor de la página anterior; se omite para pedir la primera página.
+     * @param limit Tamaño de página.
+     * @return La página de resultados con un fragmento resaltado de cada entrada.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<CursorPageResponse<DiarySearchResult>> searchDiaryEntries(
+        @RequestParam("q") String q,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "limit", required = false) Integer limit) {
+
+        Long userId = getCurrentUserId();
+        if (q.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El texto de búsqueda no puede estar vacío.");
+        }
+
+        return ResponseEntity.ok(diaryEntryService.searchEntries(userId, q, parseCursor(cursor, SearchCursor::decode), limit));
+    }
+
+    /**
+     * Decodifica el cursor de paginación recibido; null o vacío significa primera página.
+     * @param decoder EntryCursor::decode o SearchCursor::decode; lanza IllegalArgumentException si no es válido.
+     */
+    private static <C> C parseCursor(String cursor, Function<String, C> decoder) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return decoder.apply(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginación inválido.", e);
+        }
+    }
+
+    /**
+     * Comprueba que los rangos del filtro están en la escala 1-10 y que ningún mínimo supera a su máximo.
+     */
+    private void validateFilter(DiaryEntryFilter filter) {
+        validateRange("intensidad", filter.getMinIntensity(), filter.getMaxIntensity());
+        validateRange("estrés", filter.getMinStress(), filter.getMaxStress());
+        validateRange("ánimo", filter.getMinMood(), filter.getMaxMood());
+        if (filter.getFrom() != null && filter.getTo() != null && filter.getFrom().isAfter(filter.getTo())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La fecha from no puede ser posterior a to.");
+        }
+    }
+
+    private void validateRange(String name, Integer min, Integer max) {
+        if ((min != null && (min < 1 || min > 10)) || (max != null && (max < 1 || max > 10))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El filtro de " + name + " debe estar entre 1 y 10.");
+        }
+        if (min != null && max != null && min > max) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El mínimo de " + name + " no puede superar al máximo.");
+        }
+    }
+
+    /**
+     * GET /api/v1/diary?unpaged=true: Lista todas las entradas del usuario autenticado ordenado por fecha.
+     * Comportamiento anterior a la paginación, sin límite de tamaño; solo se usa si se pide explícitamente.
+     * El servicio devuelve la lista de DTOs, el Controller la retorna directamente.
+     */
+    @GetMapping(params = "unpaged=true")
     public ResponseEntity<List<DiaryEntryResponse>> getAllDiaryEntries() {
         Long userId = getCurrentUserId();
         
@@ -131,17 +329,21 @@ public class DiaryEntryController {
      * Vuelve a analizar con IA si el contenido cambió.
      * @param entryId El ID de la entrada a actualizar.
      * @param request DTO con los nuevos datos de la entrada.
-     * @return 200 OK con la entrada actualizada (DTO).
+     * Como en la creación, el hilo de la petición se libera mientras Gemini analiza el nuevo contenido.
+     * @return 200 OK con la entrada actualizada (DTO), o 202 Accepted si el nuevo análisis quedó pendiente.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<DiaryEntryResponse> updateDiaryEntry(
+    public Mono<ResponseEntity<DiaryEntryResponse>> updateDiaryEntry(
         @PathVariable("id") Long entryId,
         @Valid @RequestBody DiaryEntryRequest request) {
 
         Long userId = getCurrentUserId();
 
-        // El servicio lanzará excepciones que el @ControllerAdvice interceptará.
-        DiaryEntryResponse response = diaryEntryService.updateEntry(userId, entryId, request);
-        return ResponseEntity.ok(response);
+        // El Mono fallará con excepciones que el @ControllerAdvice interceptará.
+        return diaryEntryService.updateEntry(userId, entryId, request)
+                .map(response -> {
+                    HttpStatus status = response.getAnalysisStatus() == AnalysisStatus.PENDING ? HttpStatus.ACCEPTED : HttpStatus.OK;
+                    return new ResponseEntity<>(response, status);
+                });
     }
 }
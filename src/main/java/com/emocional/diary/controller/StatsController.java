@@ -1,20 +1,27 @@
 package com.emocional.diary.controller;
 
+import com.emocional.diary.dto.DailyStatsItem;
 import com.emocional.diary.dto.WeeklyStatsResponse;
+import com.emocional.diary.dto.WorryDistributionItem;
 import com.emocional.diary.dto.RecommendationResponse;
 import com.emocional.diary.service.StatsService;
 import com.emocional.diary.service.RecommendationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -54,10 +61,57 @@ public class StatsController {
         return ResponseEntity.ok(weeklyStats);
     }
 
+    /**
+     * GET /api/v1/stats/daily?days=N: estrés, sueño y ánimo medios y emoción dominante de cada uno de
+     * los últimos N días (por defecto 30, máximo 366).
+     */
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailyStatsItem>> getDailyStats(
+            @RequestParam(value = "days", defaultValue = "30") int days) {
+        if (days < 1 || days > 366) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El rango debe estar entre 1 y 366 días.");
+        }
+        Long userId = getCurrentUserId();
+        return ResponseEntity.ok(statsService.getDailyStats(userId, days));
+    }
+
+    /**
+     * GET /api/v1/stats/worries?limit=N: las N preocupaciones principales más frecuentes del usuario
+     * (por defecto 5, máximo 50) con su número de entradas.
+     */
+    @GetMapping("/worries")
+    public ResponseEntity<List<WorryDistributionItem>> getTopWorries(
+            @RequestParam(value = "limit", defaultValue = "5") int limit) {
+        if (limit < 1 || limit > 50) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El límite debe estar entre 1 y 50.");
+        }
+        Long userId = getCurrentUserId();
+        return ResponseEntity.ok(statsService.getTopWorries(userId, limit));
+    }
+
     @GetMapping("/recommendations")
-    public ResponseEntity<List<RecommendationResponse>> getRecommendations() {
+    public Mono<ResponseEntity<List<RecommendationResponse>>> getRecommendations() {
+        Long userId = getCurrentUserId();
+        return recommendationService.getRecommendations(userId).map(ResponseEntity::ok);
+    }
+
+    /**
+     * GET /api/v1/stats/recommendations/stream: envía cada recomendación por Server-Sent Events
+     * (evento "recommendation") en cuanto Gemini la genera, y un evento "done" al terminar.
+     * Si Gemini falla a mitad del stream se envía un evento "error" y se cierra la conexión.
+     */
+    @GetMapping(value = "/recommendations/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<RecommendationResponse>> streamRecommendations() {
         Long userId = getCurrentUserId();
-        List<RecommendationResponse> recommendations = recommendationService.getRecommendations(userId);
-        return ResponseEntity.ok(recommendations);
+        return recommendationService.streamRecommendations(userId)
+                .map(recommendation -> ServerSentEvent.builder(recommendation)
+                        .id(recommendation.getId())
+                        .event("recommendation")
+                        .build())
+                .concatWithValues(ServerSentEvent.<RecommendationResponse>builder().event("done").build())
+                .onErrorResume(error -> {
+                    log.error("❌ Error en el stream de recomendaciones para usuario {}: {}", userId, error.getMessage());
+                    return Flux.just(ServerSentEvent.<RecommendationResponse>builder().event("error").build());
+                });
     }
 }
@@ -0,0 +1,25 @@
+package com.emocional.diary.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados con paginación por cursor (keyset).
+ * Para obtener la siguiente página se envía nextCursor en el parámetro "cursor";
+ * es null cuando no hay más resultados.
+ * @param <T> Tipo de los elementos.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+    private List<T> items;
+    private String nextCursor; // Cursor opaco para la siguiente página
+    private boolean hasMore;
+}
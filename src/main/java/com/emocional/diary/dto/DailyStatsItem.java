@@ -0,0 +1,17 @@
+package com.emocional.diary.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class DailyStatsItem {
+    private LocalDate date;
+    private int entries;          // Número de entradas del día (0 si no hubo check-in)
+    private double averageStress;
+    private double averageSleep;
+    private double averageMood;
+    private String dominantEmotion; // Emoción de IA más frecuente del día
+}
@@ -0,0 +1,54 @@
+package com.emocional.diary.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros opcionales del listado de entradas (parámetros de GET /api/v1/diary).
+ * Todos se combinan con AND; un filtro sin valor no restringe. Los rangos son inclusivos.
+ * Ejemplo: ?emotion=ansiedad&minStress=7&from=2025-09-01&to=2025-09-30
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiaryEntryFilter {
+
+    // Emoción detectada por la IA; se normaliza con el diccionario de emociones (ver EmotionDictionary)
+    private String emotion;
+
+    // Rangos de la escala 1-10
+    private Integer minIntensity;
+    private Integer maxIntensity;
+    private Integer minStress;
+    private Integer maxStress;
+    private Integer minMood;
+    private Integer maxMood;
+
+    // Preocupación principal exacta
+    private String worry;
+
+    // Primer y último día (incluidos) en la zona del diario
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    /**
+     * @return true si no hay ningún filtro y el listado puede usar las consultas sin filtrar.
+     */
+    public boolean isEmpty() {
+        return isBlank(emotion) && minIntensity == null && maxIntensity == null
+                && minStress == null && maxStress == null && minMood == null && maxMood == null
+                && isBlank(worry) && from == null && to == null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -2,6 +2,8 @@ package com.emocional.diary.dto;
 
 import java.util.List;
 
+import com.emocional.diary.model.AnalysisEngine;
+
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -55,6 +57,12 @@ public class DiaryEntryRequest {
     @NotBlank(message = "La principal preocupación (mainWorry) no puede estar vacía.")
     @Size(min = 5, max = 255, message = "La preocupación debe tener entre 5 y 255 caracteres.")
     private String mainWorry;
+
+    /**
+     * Motor de análisis para esta entrada (GEMINI, LEXICON o AUTO). Opcional: si se omite se usa
+     * el configurado en diary.analysis.engine.
+     */
+    private AnalysisEngine analysisEngine;
     
    
 
@@ -1,5 +1,6 @@
 package com.emocional.diary.dto;
 
+import com.emocional.diary.model.AnalysisStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -37,4 +38,5 @@ public class DiaryEntryResponse {
     // aunque la entidad pueda almacenarlo como String. El Mapper se encarga de la conversión.
     private List<String> keyWords; 
     private String aiSummary; // Resumen conciso
+    private AnalysisStatus analysisStatus; // PENDING mientras el análisis de IA se completa en segundo plano
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.emocional.diary.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO reducido de una entrada para el listado del historial (GET /api/v1/diary?view=summary).
+ * El texto completo y el análisis de IA se obtienen con GET /api/v1/diary/{id}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiaryEntrySummaryResponse {
+
+    private Long id;
+    private LocalDateTime entryDate; // Fecha de creación
+    private Integer moodRating;
+    private Integer stressLevel;
+    private String detectedEmotion;
+    private String preview; // Inicio del contenido, terminado en "…" si se recortó
+}
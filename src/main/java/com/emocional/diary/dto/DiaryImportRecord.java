@@ -0,0 +1,66 @@
+package com.emocional.diary.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Una línea del fichero NDJSON de POST /api/v1/diary/import.
+ * Las entradas vienen de otra aplicación, por eso los límites son más amplios que en DiaryEntryRequest
+ * (sin longitud mínima de texto ni de preocupación). Los campos de IA son opcionales.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiaryImportRecord {
+
+    @NotBlank(message = "El contenido (entryText) no puede estar vacío.")
+    @Size(max = 5000, message = "El contenido no debe exceder 5000 caracteres.")
+    private String entryText;
+
+    // Fecha y hora original de la entrada; define su día (entry_date)
+    @NotNull(message = "La fecha de creación (createdAt) es obligatoria.")
+    @PastOrPresent(message = "La fecha de creación no puede ser futura.")
+    private Instant createdAt;
+
+    @NotNull(message = "La calificación de ánimo (moodRating) es obligatoria.")
+    @Min(value = 1, message = "La calificación de ánimo debe ser al menos 1.")
+    @Max(value = 10, message = "La calificación de ánimo no debe exceder 10.")
+    private Integer moodRating;
+
+    @NotNull(message = "El nivel de estrés (stressLevel) es obligatorio.")
+    @Min(value = 1, message = "El nivel de estrés debe ser al menos 1.")
+    @Max(value = 10, message = "El nivel de estrés no debe exceder 10.")
+    private Integer stressLevel;
+
+    @NotNull(message = "Las horas de sueño (sleepHours) son obligatorias.")
+    @Min(value = 0, message = "Las horas de sueño no pueden ser negativas.")
+    @Max(value = 24, message = "Las horas de sueño no deben exceder 24.")
+    private Integer sleepHours;
+
+    @Size(max = 500, message = "La preocupación no debe exceder 500 caracteres.")
+    private String mainWorry;
+
+    // --- Análisis previo opcional (solo se usa con analysis=SKIP) ---
+    @Size(max = 100, message = "La emoción no debe exceder 100 caracteres.")
+    private String detectedEmotion;
+
+    @Min(value = 1, message = "La intensidad emocional debe ser al menos 1.")
+    @Max(value = 10, message = "La intensidad emocional no debe exceder 10.")
+    private Integer emotionalIntensity;
+
+    private String aiSummary;
+
+    private List<String> keyWords;
+}
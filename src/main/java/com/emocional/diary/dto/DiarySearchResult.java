@@ -0,0 +1,28 @@
+package com.emocional.diary.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resultado de GET /api/v1/diary/search: datos del historial y un fragmento del texto con los términos
+ * encontrados entre « y ». El texto completo se obtiene con GET /api/v1/diary/{id}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiarySearchResult {
+
+    private Long id;
+    private LocalDateTime entryDate; // Fecha de creación
+    private Integer moodRating;
+    private Integer stressLevel;
+    private String detectedEmotion;
+    private String mainWorry;
+    private String snippet;  // Fragmento del contenido con las coincidencias resaltadas
+    private double rank;     // Relevancia (mayor es mejor)
+}
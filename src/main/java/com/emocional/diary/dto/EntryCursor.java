@@ -0,0 +1,42 @@
+package com.emocional.diary.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición en el listado de entradas (createdAt, id) de la última entrada devuelta.
+ * Se expone al cliente como una cadena opaca en Base64 URL-safe; el cliente no debe interpretarla.
+ * @param createdAt Fecha de creación de la última entrada de la página.
+ * @param id ID de la última entrada de la página (desempata entradas con el mismo createdAt).
+ */
+public record EntryCursor(Instant createdAt, Long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor Cursor opaco recibido del cliente.
+     * @return La posición que representa.
+     * @throws IllegalArgumentException Si el cursor no es válido.
+     */
+    public static EntryCursor decode(String cursor) {
+        try {
+            String raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Cursor inválido.");
+            }
+            return new EntryCursor(Instant.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException es una IllegalArgumentException
+            throw new IllegalArgumentException("Cursor inválido.", e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.emocional.diary.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva de entradas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultResponse {
+
+    private long imported;        // Entradas insertadas
+    private long duplicates;      // Omitidas porque el usuario ya tenía una entrada ese día
+    private long invalid;         // Líneas rechazadas por formato o validación
+    private List<String> errors;  // Detalle de las primeras líneas rechazadas ("línea N: motivo")
+}
@@ -0,0 +1,40 @@
+package com.emocional.diary.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición en los resultados de búsqueda (rank, id) del último resultado devuelto.
+ * Igual que EntryCursor, se expone como cadena opaca en Base64 URL-safe.
+ * @param rank Relevancia del último resultado (ts_rank como double; se conserva exacta al codificarla).
+ * @param id ID del último resultado (desempata resultados con la misma relevancia).
+ */
+public record SearchCursor(double rank, Long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public String encode() {
+        String raw = rank + "|" + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor Cursor opaco recibido del cliente.
+     * @return La posición que representa.
+     * @throws IllegalArgumentException Si el cursor no es válido.
+     */
+    public static SearchCursor decode(String cursor) {
+        try {
+            String raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Cursor inválido.");
+            }
+            return new SearchCursor(Double.parseDouble(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException es una IllegalArgumentException
+            throw new IllegalArgumentException("Cursor inválido.", e);
+        }
+    }
+}
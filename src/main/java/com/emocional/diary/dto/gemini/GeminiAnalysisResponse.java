@@ -1,5 +1,6 @@
 package com.emocional.diary.dto.gemini;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import java.util.List;
 
@@ -9,4 +10,8 @@ public class GeminiAnalysisResponse {
     private Integer intensity;
     private String summary;
     private List<String> keywords;
-}
\ No newline at end of file
+
+    // true si el resultado viene del analizador local y no de Gemini (no se serializa ni se cachea)
+    @JsonIgnore
+    private boolean fallback;
+}
@@ -0,0 +1,9 @@
+package com.emocional.diary.event;
+
+/**
+ * Evento publicado cuando una entrada queda en estado PENDING y necesita análisis de IA.
+ * Se procesa después del commit de la transacción para que el worker vea la entrada persistida.
+ * @param entryId ID de la entrada a analizar.
+ */
+public record AnalysisRequestedEvent(Long entryId) {
+}
@@ -0,0 +1,10 @@
+package com.emocional.diary.event;
+
+/**
+ * Evento publicado cuando se crea o modifica una entrada de diario.
+ * Se procesa después del commit para invalidar los datos derivados del usuario (recomendaciones).
+ * @param userId ID del usuario propietario.
+ * @param entryId ID de la entrada creada o modificada.
+ */
+public record DiaryEntryChangedEvent(Long userId, Long entryId) {
+}
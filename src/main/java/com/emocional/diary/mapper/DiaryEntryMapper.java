@@ -1,7 +1,10 @@
 package com.emocional.diary.mapper; // Crea este nuevo paquete
 
 import com.emocional.diary.dto.DiaryEntryResponse;
+import com.emocional.diary.dto.DiaryEntrySummaryResponse;
+import com.emocional.diary.model.AnalysisStatus;
 import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.repository.DiaryEntrySummary;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
@@ -46,6 +49,8 @@ public class DiaryEntryMapper {
 				.emotionalIntensity(entry.getAiIntensity())
 				.keyWords(entry.getAiKeywords())
 				.aiSummary(entry.getAiSummary())
+				// Las entradas anteriores al análisis asíncrono no tienen estado: ya estaban analizadas
+				.analysisStatus(entry.getAnalysisStatus() != null ? entry.getAnalysisStatus() : AnalysisStatus.DONE)
 				.build();
 				
 				
@@ -70,4 +75,29 @@ public class DiaryEntryMapper {
     }
 	
 	
-}
\ No newline at end of file
+    /**
+     * Convierte una proyección del listado resumido a su DTO.
+     * @param summary La proyección fuente (contentPrefix trae como máximo previewLength + 1 caracteres).
+     * @param previewLength Longitud máxima de la vista previa; si el contenido era más largo se añade "…".
+     * @return El DTO resumido.
+     */
+    public DiaryEntrySummaryResponse toSummaryDto(DiaryEntrySummary summary, int previewLength) {
+        if (summary == null) {
+            return null;
+        }
+        String prefix = summary.contentPrefix();
+        // SUBSTRING de PostgreSQL cuenta caracteres (code points), no unidades UTF-16
+        String preview = prefix != null && prefix.codePointCount(0, prefix.length()) > previewLength
+                ? prefix.substring(0, prefix.offsetByCodePoints(0, previewLength)).stripTrailing() + "…"
+                : prefix;
+
+        return DiaryEntrySummaryResponse.builder()
+                .id(summary.id())
+                .entryDate(summary.createdAt().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime())
+                .moodRating(summary.userMoodRating())
+                .stressLevel(summary.userStressLevel())
+                .detectedEmotion(summary.aiEmotion())
+                .preview(preview)
+                .build();
+    }
+}
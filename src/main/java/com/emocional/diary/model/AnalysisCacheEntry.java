@@ -0,0 +1,35 @@
+package com.emocional.diary.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Nivel persistente del cache de análisis de sentimientos.
+ * La clave es el hash SHA-256 del contenido normalizado junto con la versión del prompt y el modelo,
+ * por lo que el mismo texto analizado con otro prompt produce una clave distinta.
+ */
+@Entity
+@Table(name = "analysis_cache")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalysisCacheEntry {
+
+    // Hash hexadecimal (SHA-256) del contenido normalizado + versión de análisis
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    // Resultado del análisis serializado como JSON (GeminiAnalysisResponse)
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
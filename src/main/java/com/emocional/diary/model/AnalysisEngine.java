@@ -0,0 +1,13 @@
+package com.emocional.diary.model;
+
+/**
+ * Motor usado para analizar el texto de una entrada de diario.
+ * GEMINI: análisis con el modelo de Google (con cache, batching y circuit breaker).
+ * LEXICON: clasificador local basado en léxico, en proceso y sin coste.
+ * AUTO: pre-clasifica con el léxico y solo llama a Gemini si la confianza es baja.
+ */
+public enum AnalysisEngine {
+    GEMINI,
+    LEXICON,
+    AUTO
+}
@@ -0,0 +1,16 @@
+package com.emocional.diary.model;
+
+/**
+ * Estado del análisis de IA de una entrada de diario.
+ * PENDING: la entrada se guardó y espera a que el worker en segundo plano la analice.
+ * DONE: los campos de IA ya están completos.
+ * FALLBACK: los campos de IA vienen del analizador local (Gemini no estaba disponible);
+ *           la recuperación periódica la vuelve a analizar con Gemini cuando se recupere.
+ * FAILED: se agotaron los reintentos; la recuperación periódica no la volverá a tomar.
+ */
+public enum AnalysisStatus {
+    PENDING,
+    DONE,
+    FALLBACK,
+    FAILED
+}
@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -13,17 +15,26 @@ import java.util.List;
  * Entidad que representa una entrada de diario personal.
  * Contiene el texto libre del usuario y los resultados del análisis de IA,
  * además de los datos del check-in (estrés, ánimo, sueño).
+ * El esquema real (índices incluidos) lo crean las migraciones de Flyway en db/migration.
  */
 @Entity
-@Table(name = "diary_entry")
+@Table(name = "diary_entry", indexes = {
+        // Listado paginado por cursor (createdAt, id) y consultas por rango de fechas del usuario
+        @Index(name = "idx_diary_entry_user_created_id", columnList = "userId, createdAt DESC, id DESC")
+}, uniqueConstraints = {
+        // Regla de "una entrada por día", garantizada por la base de datos también ante peticiones concurrentes
+        @UniqueConstraint(name = "uk_diary_entry_user_entry_date", columnNames = {"userId", "entryDate"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class DiaryEntry {
 
+    // Secuencia con bloques de 50 IDs (pooled-lo): a diferencia de IDENTITY permite los lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "diary_entry_seq")
+    @SequenceGenerator(name = "diary_entry_seq", sequenceName = "diary_entry_seq", allocationSize = 50)
     private Long id;
 
     // Campo obligatorio para asociar la entrada al usuario (obtenido del JWT)
@@ -58,6 +69,11 @@ public class DiaryEntry {
     @Column(length = 100)
     private String aiEmotion;
 
+    // Categoría de aiEmotion en el diccionario de emociones (tabla emotion); nula si la emoción no está en él.
+    // Se asigna junto con aiEmotion mediante EmotionDictionary
+    @Column(name = "emotion_id")
+    private Short emotionId;
+
     // Intensidad de la emoción detectada (1-10)
     private Integer aiIntensity;
 
@@ -65,18 +81,42 @@ public class DiaryEntry {
     @Column(columnDefinition = "TEXT")
     private String aiSummary;
 
-    // Palabras clave extraídas, almacenadas como un array de texto
-    @ElementCollection
-    @CollectionTable(name = "diary_keywords", joinColumns = @JoinColumn(name = "entry_id"))
-    @Column(name = "keyword")
+    // Palabras clave extraídas, almacenadas como un array de texto (text[]) en la misma fila:
+    // se leen con la entrada sin consultas adicionales y se escriben en el mismo INSERT/UPDATE
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "ai_keywords", columnDefinition = "text[]")
     private List<String> aiKeywords;
 
+    // Estado del análisis de IA (PENDING mientras el worker en segundo plano no lo complete)
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private AnalysisStatus analysisStatus;
+
+    // Número de intentos fallidos de análisis (usado por la recuperación tras reinicios)
+    @Builder.Default
+    private Integer analysisAttempts = 0;
+
+    // Día de la entrada en la zona del diario (diary.time-zone); único por usuario.
+    // Nulo solo en entradas antiguas que compartían día con otra (ver V10__backfill_entry_date.sql)
+    private java.time.LocalDate entryDate;
+
     // Fecha y hora de creación de la entrada
     @Column(nullable = false)
     private java.time.Instant createdAt;
 
+    // Última modificación (creación, edición o análisis); versiona los datos derivados del usuario
+    private java.time.Instant updatedAt;
+
     @PrePersist
     protected void onCreate() {
-        createdAt = java.time.Instant.now();
+        if (createdAt == null) {
+            createdAt = java.time.Instant.now();
+        }
+        updatedAt = java.time.Instant.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = java.time.Instant.now();
     }
 }
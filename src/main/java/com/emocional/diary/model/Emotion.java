@@ -0,0 +1,43 @@
+package com.emocional.diary.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.List;
+
+/**
+ * Categoría del diccionario de emociones (tabla emotion, datos en la migración V8).
+ * Las entradas la referencian con diary_entry.emotion_id; ver EmotionDictionary.
+ */
+@Entity
+@Table(name = "emotion")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Emotion {
+
+    @Id
+    private Short id;
+
+    // Identificador estable, en minúsculas y sin tildes (e.g., "frustracion")
+    @Column(length = 50, nullable = false, unique = true)
+    private String code;
+
+    // Nombre que se guarda en aiEmotion y se muestra al usuario (e.g., "frustración")
+    @Column(length = 100, nullable = false)
+    private String label;
+
+    // Sinónimos que se normalizan a esta categoría, en minúsculas y sin tildes
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(columnDefinition = "text[]", nullable = false)
+    private List<String> aliases;
+}
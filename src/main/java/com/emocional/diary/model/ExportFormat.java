@@ -0,0 +1,11 @@
+package com.emocional.diary.model;
+
+/**
+ * Formato de GET /api/v1/diary/export.
+ * NDJSON: un DiaryImportRecord por línea, el mismo formato que acepta POST /api/v1/diary/import.
+ * CSV: las mismas columnas con cabecera (RFC 4180, UTF-8); las palabras clave se separan con ';'.
+ */
+public enum ExportFormat {
+    NDJSON,
+    CSV
+}
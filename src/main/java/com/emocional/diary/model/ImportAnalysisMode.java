@@ -0,0 +1,12 @@
+package com.emocional.diary.model;
+
+/**
+ * Tratamiento del análisis de IA de las entradas importadas en bloque.
+ * SKIP: no se analizan; se guardan los campos de IA que traiga el registro (si los trae) en estado DONE.
+ * DEFER: se guardan en PENDING y la recuperación periódica de DiaryAnalysisWorker las analiza
+ *        por lotes (diary.analysis.recovery.batch-size), sin saturar Gemini durante la importación.
+ */
+public enum ImportAnalysisMode {
+    SKIP,
+    DEFER
+}
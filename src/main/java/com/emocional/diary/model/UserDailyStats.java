@@ -0,0 +1,58 @@
+package com.emocional.diary.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Agregado diario de las entradas de un usuario (tabla user_daily_stats).
+ * Guarda sumas y conteos en lugar de medias para poder combinar días en cualquier rango;
+ * se recalcula al escribir las entradas del día (ver DailyStatsRollupService).
+ */
+@Entity
+@Table(name = "user_daily_stats")
+@IdClass(UserDailyStats.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserDailyStats {
+
+    @Id
+    private Long userId;
+
+    // Día en la zona del diario (diary.time-zone)
+    @Id
+    private LocalDate statDate;
+
+    private int entryCount;
+
+    private int stressSum;
+    private int stressCount;
+
+    private int sleepSum;
+    private int sleepCount;
+
+    private int moodSum;
+    private int moodCount;
+
+    // Emoción de IA más frecuente del día
+    @Column(length = 100)
+    private String dominantEmotion;
+
+    /**
+     * Clave compuesta (userId, statDate).
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate statDate;
+    }
+}
@@ -0,0 +1,43 @@
+package com.emocional.diary.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Número de entradas de un usuario con una preocupación principal dada (tabla user_worry_count).
+ * Solo cuenta las preocupaciones reales: ni vacías ni "Ninguna" (ver WorryCounterService).
+ */
+@Entity
+@Table(name = "user_worry_count")
+@IdClass(UserWorryCount.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserWorryCount {
+
+    @Id
+    private Long userId;
+
+    @Id
+    @Column(length = 500)
+    private String worry;
+
+    private int entryCount;
+
+    /**
+     * Clave compuesta (userId, worry).
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private String worry;
+    }
+}
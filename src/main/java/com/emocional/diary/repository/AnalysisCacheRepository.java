@@ -0,0 +1,26 @@
+package com.emocional.diary.repository;
+
+import com.emocional.diary.model.AnalysisCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Repositorio del nivel persistente del cache de análisis.
+ */
+public interface AnalysisCacheRepository extends JpaRepository<AnalysisCacheEntry, String> {
+
+    /**
+     * Elimina las entradas del cache creadas antes del instante dado (expiración por TTL).
+     * @param threshold Instante límite.
+     * @return Número de filas eliminadas.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AnalysisCacheEntry c WHERE c.createdAt < :threshold")
+    int deleteOlderThan(@Param("threshold") Instant threshold);
+}
@@ -0,0 +1,158 @@
+package com.emocional.diary.repository;
+
+import com.emocional.diary.model.DiaryEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Inserción masiva de entradas para la importación.
+ * Cada lote es una sola sentencia INSERT ... SELECT FROM unnest(arrays): un viaje a la base de datos y un
+ * único plan por lote, sin depender de reWriteBatchedInserts ni de la API COPY del driver.
+ * Las entradas cuyo día ya estaba ocupado se omiten (ON CONFLICT DO NOTHING sobre (user_id, entry_date)).
+ */
+@Repository
+@RequiredArgsConstructor
+public class DiaryEntryBulkInsert {
+
+    // Debe coincidir con allocationSize de @SequenceGenerator en DiaryEntry (optimizador pooled-lo)
+    private static final int ID_BLOCK_SIZE = 50;
+
+    // Separador de las palabras clave dentro de un elemento del array (no puede haber arrays irregulares)
+    private static final String KEYWORD_SEPARATOR = "\u001f";
+
+    private static final String SQL = """
+            INSERT INTO diary_entry (id, user_id, content, user_stress_level, user_mood_rating, user_sleep_hours,
+                                     main_worry, ai_emotion, emotion_id, ai_intensity, ai_summary, ai_keywords,
+                                     analysis_status, analysis_attempts, entry_date, created_at, updated_at)
+            SELECT t.id, t.user_id, t.content, t.stress, t.mood, t.sleep,
+                   t.main_worry, t.emotion, t.emotion_id, t.intensity, t.summary, string_to_array(t.keywords, chr(31)),
+                   t.status, 0, t.entry_date::date, t.created_at::timestamptz, now()
+            FROM unnest(?::bigint[], ?::bigint[], ?::text[], ?::int[], ?::int[], ?::int[],
+                        ?::text[], ?::text[], ?::smallint[], ?::int[], ?::text[], ?::text[],
+                        ?::text[], ?::text[], ?::text[])
+                 AS t(id, user_id, content, stress, mood, sleep,
+                      main_worry, emotion, emotion_id, intensity, summary, keywords,
+                      status, entry_date, created_at)
+            ON CONFLICT DO NOTHING
+            RETURNING created_at, main_worry
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Fila efectivamente insertada, para mantener los agregados (user_daily_stats, user_worry_count).
+     */
+    public record InsertedEntry(Instant createdAt, String mainWorry) {
+    }
+
+    /**
+     * Inserta un lote de entradas nuevas. Los IDs se reservan de diary_entry_seq en bloques, igual que Hibernate.
+     * @param entries Entradas sin ID, con entryDate y createdAt ya calculados.
+     * @return Las entradas insertadas (las omitidas por duplicado no aparecen).
+     */
+    public List<InsertedEntry> insert(List<DiaryEntry> entries) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = allocateIds(entries.size());
+        int n = entries.size();
+
+        Long[] id = new Long[n];
+        Long[] userId = new Long[n];
+        String[] content = new String[n];
+        Integer[] stress = new Integer[n];
+        Integer[] mood = new Integer[n];
+        Integer[] sleep = new Integer[n];
+        String[] mainWorry = new String[n];
+        String[] emotion = new String[n];
+        Short[] emotionId = new Short[n];
+        Integer[] intensity = new Integer[n];
+        String[] summary = new String[n];
+        String[] keywords = new String[n];
+        String[] status = new String[n];
+        String[] entryDate = new String[n];
+        String[] createdAt = new String[n];
+
+        for (int i = 0; i < n; i++) {
+            DiaryEntry entry = entries.get(i);
+            id[i] = ids.get(i);
+            userId[i] = entry.getUserId();
+            content[i] = entry.getContent();
+            stress[i] = entry.getUserStressLevel();
+            mood[i] = entry.getUserMoodRating();
+            sleep[i] = entry.getUserSleepHours();
+            mainWorry[i] = entry.getMainWorry();
+            emotion[i] = entry.getAiEmotion();
+            emotionId[i] = entry.getEmotionId();
+            intensity[i] = entry.getAiIntensity();
+            summary[i] = entry.getAiSummary();
+            keywords[i] = joinKeywords(entry.getAiKeywords());
+            status[i] = entry.getAnalysisStatus() != null ? entry.getAnalysisStatus().name() : null;
+            entryDate[i] = Objects.toString(entry.getEntryDate(), null);
+            createdAt[i] = entry.getCreatedAt().toString();
+        }
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SQL);
+            ps.setArray(1, array(connection, "bigint", id));
+            ps.setArray(2, array(connection, "bigint", userId));
+            ps.setArray(3, array(connection, "text", content));
+            ps.setArray(4, array(connection, "int4", stress));
+            ps.setArray(5, array(connection, "int4", mood));
+            ps.setArray(6, array(connection, "int4", sleep));
+            ps.setArray(7, array(connection, "text", mainWorry));
+            ps.setArray(8, array(connection, "text", emotion));
+            ps.setArray(9, array(connection, "int2", emotionId));
+            ps.setArray(10, array(connection, "int4", intensity));
+            ps.setArray(11, array(connection, "text", summary));
+            ps.setArray(12, array(connection, "text", keywords));
+            ps.setArray(13, array(connection, "text", status));
+            ps.setArray(14, array(connection, "text", entryDate));
+            ps.setArray(15, array(connection, "text", createdAt));
+            return ps;
+        }, (rs, rowNum) -> new InsertedEntry(
+                rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+                rs.getString("main_worry")));
+    }
+
+    /**
+     * Reserva al menos {@code count} IDs: cada nextval devuelve el primero de un bloque de ID_BLOCK_SIZE.
+     */
+    private List<Long> allocateIds(int count) {
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        List<Long> blockStarts = jdbcTemplate.queryForList(
+                "SELECT nextval('diary_entry_seq') FROM generate_series(1, ?)", Long.class, blocks);
+        List<Long> ids = new ArrayList<>(blocks * ID_BLOCK_SIZE);
+        for (Long start : blockStarts) {
+            for (int i = 0; i < ID_BLOCK_SIZE; i++) {
+                ids.add(start + i);
+            }
+        }
+        return ids;
+    }
+
+    private static String joinKeywords(List<String> keywords) {
+        if (keywords == null) {
+            return null;
+        }
+        return String.join(KEYWORD_SEPARATOR, keywords.stream()
+                .filter(Objects::nonNull)
+                .map(keyword -> keyword.replace(KEYWORD_SEPARATOR, ""))
+                .toList());
+    }
+
+    private static Array array(Connection connection, String type, Object[] values) throws SQLException {
+        return connection.createArrayOf(type, values);
+    }
+}
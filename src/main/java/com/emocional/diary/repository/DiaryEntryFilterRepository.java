@@ -0,0 +1,29 @@
+package com.emocional.diary.repository;
+
+import com.emocional.diary.model.DiaryEntry;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Consultas del listado con filtros dinámicos (fragmento de DiaryEntryRepository).
+ * Ordenan por (createdAt DESC, id DESC) y devuelven como máximo {@code limit} filas, sin COUNT.
+ */
+public interface DiaryEntryFilterRepository {
+
+    /**
+     * @param spec Condiciones del filtro, incluido el usuario y la posición del cursor.
+     * @param limit Número máximo de entradas.
+     * @return Entradas completas que cumplen el filtro.
+     */
+    List<DiaryEntry> findFilteredPage(Specification<DiaryEntry> spec, int limit);
+
+    /**
+     * Igual que findFilteredPage pero con la proyección del listado resumido.
+     * @param spec Condiciones del filtro, incluido el usuario y la posición del cursor.
+     * @param prefixLength Número de caracteres del contenido a devolver.
+     * @param limit Número máximo de entradas.
+     * @return Resúmenes de las entradas que cumplen el filtro.
+     */
+    List<DiaryEntrySummary> findFilteredSummaryPage(Specification<DiaryEntry> spec, int prefixLength, int limit);
+}
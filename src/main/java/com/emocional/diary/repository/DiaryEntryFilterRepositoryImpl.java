@@ -0,0 +1,52 @@
+package com.emocional.diary.repository;
+
+import com.emocional.diary.model.DiaryEntry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Implementación con la API Criteria de {@link DiaryEntryFilterRepository}.
+ */
+class DiaryEntryFilterRepositoryImpl implements DiaryEntryFilterRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<DiaryEntry> findFilteredPage(Specification<DiaryEntry> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DiaryEntry> query = cb.createQuery(DiaryEntry.class);
+        Root<DiaryEntry> root = query.from(DiaryEntry.class);
+
+        query.select(root)
+                .where(spec.toPredicate(root, query, cb))
+                .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<DiaryEntrySummary> findFilteredSummaryPage(Specification<DiaryEntry> spec, int prefixLength, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DiaryEntrySummary> query = cb.createQuery(DiaryEntrySummary.class);
+        Root<DiaryEntry> root = query.from(DiaryEntry.class);
+
+        query.select(cb.construct(DiaryEntrySummary.class,
+                        root.get("id"),
+                        root.get("createdAt"),
+                        root.get("userMoodRating"),
+                        root.get("userStressLevel"),
+                        root.get("aiEmotion"),
+                        cb.substring(root.<String>get("content"), 1, prefixLength)))
+                .where(spec.toPredicate(root, query, cb))
+                .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
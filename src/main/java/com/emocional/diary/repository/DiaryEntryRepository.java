@@ -1,18 +1,25 @@
 package com.emocional.diary.repository;
 
+import com.emocional.diary.model.AnalysisStatus;
 import com.emocional.diary.model.DiaryEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para la entidad DiaryEntry.
+ * El listado con filtros dinámicos está en el fragmento {@link DiaryEntryFilterRepository}.
  */
-public interface DiaryEntryRepository extends JpaRepository<DiaryEntry, Long> {
+public interface DiaryEntryRepository extends JpaRepository<DiaryEntry, Long>, DiaryEntryFilterRepository {
 
     /**
      * Busca todas las entradas de diario de un usuario específico.
@@ -20,6 +27,89 @@ public interface DiaryEntryRepository extends JpaRepository<DiaryEntry, Long> {
      * @return Lista de entradas de diario.
      */
     List<DiaryEntry> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    /**
+     * Indica si el usuario ya tiene entrada para el día dado. Solo lee el índice único
+     * (user_id, entry_date) (Index Only Scan), que sigue siendo la garantía frente a check-ins simultáneos.
+     * @param userId El ID del usuario propietario.
+     * @param entryDate Día del diario en la zona configurada.
+     * @return true si ya existe la entrada.
+     */
+    @Query(value = """
+            SELECT EXISTS (SELECT 1 FROM diary_entry WHERE user_id = :userId AND entry_date = :entryDate)
+            """, nativeQuery = true)
+    boolean existsByUserIdAndEntryDate(@Param("userId") Long userId, @Param("entryDate") LocalDate entryDate);
+
+    /**
+     * Todas las entradas de un usuario, de la más antigua a la más reciente, leídas de la base de datos por
+     * bloques de 500 filas a medida que se consume el Stream (exportación).
+     * Debe consumirse y cerrarse dentro de una transacción; las entidades se cargan en solo lectura.
+     * @param userId El ID del usuario propietario.
+     * @return Stream de entradas.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM DiaryEntry e WHERE e.userId = :userId ORDER BY e.createdAt ASC, e.id ASC")
+    Stream<DiaryEntry> streamAllByUserId(@Param("userId") Long userId);
+
+    /**
+     * Primera página del listado de entradas de un usuario, de la más reciente a la más antigua.
+     * Usa el índice (user_id, created_at DESC, id DESC).
+     * @param userId El ID del usuario propietario.
+     * @param pageable Tamaño de la página (siempre la página 0).
+     * @return Entradas de la primera página.
+     */
+    @Query("SELECT e FROM DiaryEntry e WHERE e.userId = :userId ORDER BY e.createdAt DESC, e.id DESC")
+    List<DiaryEntry> findFirstPageByUserId(@Param("userId") Long userId, org.springframework.data.domain.Pageable pageable);
+
+    /**
+     * Página siguiente a la posición (createdAt, id) dada, en el mismo orden que findFirstPageByUserId.
+     * Paginación keyset: el coste no crece con la profundidad de la página, a diferencia de OFFSET.
+     * @param userId El ID del usuario propietario.
+     * @param createdAt createdAt de la última entrada de la página anterior.
+     * @param id ID de la última entrada de la página anterior.
+     * @param pageable Tamaño de la página (siempre la página 0).
+     * @return Entradas de la página siguiente.
+     */
+    @Query("SELECT e FROM DiaryEntry e WHERE e.userId = :userId " +
+           "AND (e.createdAt < :createdAt OR (e.createdAt = :createdAt AND e.id < :id)) " +
+           "ORDER BY e.createdAt DESC, e.id DESC")
+    List<DiaryEntry> findPageByUserIdAfter(@Param("userId") Long userId,
+                                           @Param("createdAt") java.time.Instant createdAt,
+                                           @Param("id") Long id,
+                                           org.springframework.data.domain.Pageable pageable);
+
+    /**
+     * Primera página del listado resumido: solo las columnas del historial y un prefijo del contenido
+     * recortado en la base de datos, sin hidratar entidades.
+     * @param userId El ID del usuario propietario.
+     * @param prefixLength Número de caracteres del contenido a devolver.
+     * @param pageable Tamaño de la página (siempre la página 0).
+     * @return Resúmenes de la primera página.
+     */
+    @Query("SELECT new com.emocional.diary.repository.DiaryEntrySummary(e.id, e.createdAt, e.userMoodRating, " +
+           "e.userStressLevel, e.aiEmotion, SUBSTRING(e.content, 1, :prefixLength)) " +
+           "FROM DiaryEntry e WHERE e.userId = :userId ORDER BY e.createdAt DESC, e.id DESC")
+    List<DiaryEntrySummary> findFirstSummaryPageByUserId(@Param("userId") Long userId,
+                                                         @Param("prefixLength") int prefixLength,
+                                                         org.springframework.data.domain.Pageable pageable);
+
+    /**
+     * Página del listado resumido siguiente a la posición (createdAt, id) dada.
+     * @see #findFirstSummaryPageByUserId(Long, int, org.springframework.data.domain.Pageable)
+     */
+    @Query("SELECT new com.emocional.diary.repository.DiaryEntrySummary(e.id, e.createdAt, e.userMoodRating, " +
+           "e.userStressLevel, e.aiEmotion, SUBSTRING(e.content, 1, :prefixLength)) " +
+           "FROM DiaryEntry e WHERE e.userId = :userId " +
+           "AND (e.createdAt < :createdAt OR (e.createdAt = :createdAt AND e.id < :id)) " +
+           "ORDER BY e.createdAt DESC, e.id DESC")
+    List<DiaryEntrySummary> findSummaryPageByUserIdAfter(@Param("userId") Long userId,
+                                                         @Param("createdAt") java.time.Instant createdAt,
+                                                         @Param("id") Long id,
+                                                         @Param("prefixLength") int prefixLength,
+                                                         org.springframework.data.domain.Pageable pageable);
     
     
     /**
@@ -47,9 +137,28 @@ public interface DiaryEntryRepository extends JpaRepository<DiaryEntry, Long> {
                                                   @Param("startOfDay") java.time.Instant startOfDay, 
                                                   @Param("endOfDay") java.time.Instant endOfDay);
     
-    @Query("SELECT e.mainWorry FROM DiaryEntry e WHERE e.userId = :userId AND e.mainWorry IS NOT NULL AND TRIM(e.mainWorry) <> '' AND e.mainWorry <> 'Ninguna' GROUP BY e.mainWorry ORDER BY COUNT(e.mainWorry) DESC")
-    List<String> findMostFrequentMainWorry(@Param("userId") Long userId, org.springframework.data.domain.Pageable pageable);
-
     List<DiaryEntry> findByUserIdAndCreatedAtBetween(Long userId, java.time.Instant start, java.time.Instant end);
 
+    /**
+     * Devuelve el instante de la última modificación de cualquier entrada del usuario.
+     * Las entradas anteriores a la columna updated_at usan su fecha de creación.
+     * @param userId ID del usuario.
+     * @return Instante de la última modificación, o null si el usuario no tiene entradas.
+     */
+    @Query("SELECT MAX(COALESCE(e.updatedAt, e.createdAt)) FROM DiaryEntry e WHERE e.userId = :userId")
+    java.time.Instant findLastModifiedAtByUserId(@Param("userId") Long userId);
+
+    /**
+     * Devuelve los IDs de las entradas con un estado de análisis dado y menos intentos fallidos que el máximo.
+     * Usado por la recuperación de análisis pendientes tras un reinicio y por el re-análisis de fallbacks.
+     * @param status Estado de análisis buscado.
+     * @param maxAttempts Número de intentos a partir del cual la entrada ya no se recupera.
+     * @param pageable Límite del lote a recuperar.
+     * @return IDs de las entradas, de la más antigua a la más reciente.
+     */
+    @Query("SELECT e.id FROM DiaryEntry e WHERE e.analysisStatus = :status AND COALESCE(e.analysisAttempts, 0) < :maxAttempts ORDER BY e.id ASC")
+    List<Long> findIdsByAnalysisStatus(@Param("status") AnalysisStatus status,
+                                       @Param("maxAttempts") int maxAttempts,
+                                       org.springframework.data.domain.Pageable pageable);
+
 }
@@ -0,0 +1,74 @@
+package com.emocional.diary.repository;
+
+import com.emocional.diary.dto.DiarySearchResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Búsqueda de texto completo en las entradas de un usuario sobre diary_entry.search_vector (índice GIN).
+ * La consulta interna encuentra y ordena solo los IDs de la página por (rank DESC, id DESC), con paginación
+ * keyset sobre ese par; ts_headline, que es caro, se calcula después únicamente para las filas de la página.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DiaryEntrySearchQuery {
+
+    private static final String SQL = """
+            WITH query AS (
+                SELECT websearch_to_tsquery('spanish', :text) AS q
+            ),
+            page AS (
+                SELECT e.id, ts_rank(e.search_vector, query.q)::float8 AS rank
+                FROM diary_entry e, query
+                WHERE e.user_id = :userId AND e.search_vector @@ query.q
+                  AND (CAST(:afterRank AS float8) IS NULL
+                       OR (ts_rank(e.search_vector, query.q)::float8, e.id) < (CAST(:afterRank AS float8), CAST(:afterId AS bigint)))
+                ORDER BY rank DESC, e.id DESC
+                LIMIT :limit
+            )
+            SELECT e.id, e.created_at, e.user_mood_rating, e.user_stress_level, e.ai_emotion, e.main_worry, page.rank,
+                   ts_headline('spanish', e.content, query.q,
+                               'StartSel=«, StopSel=», MaxWords=30, MinWords=10, MaxFragments=2') AS snippet
+            FROM page
+            JOIN diary_entry e ON e.id = page.id
+            CROSS JOIN query
+            ORDER BY page.rank DESC, e.id DESC
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * @param userId ID del usuario.
+     * @param text Texto de búsqueda (sintaxis de buscador: palabras, "frases", -exclusiones, OR).
+     * @param afterRank Relevancia del último resultado de la página anterior, o null para la primera.
+     * @param afterId ID del último resultado de la página anterior, o null para la primera.
+     * @param limit Número máximo de resultados.
+     * @return Resultados de mayor a menor relevancia.
+     */
+    public List<DiarySearchResult> search(Long userId, String text, Double afterRank, Long afterId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("text", text)
+                .addValue("afterRank", afterRank)
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+
+        return jdbcTemplate.query(SQL, params, (rs, rowNum) -> DiarySearchResult.builder()
+                .id(rs.getLong("id"))
+                .entryDate(rs.getObject("created_at", OffsetDateTime.class)
+                        .atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime())
+                .moodRating(rs.getInt("user_mood_rating"))
+                .stressLevel(rs.getInt("user_stress_level"))
+                .detectedEmotion(rs.getString("ai_emotion"))
+                .mainWorry(rs.getString("main_worry"))
+                .snippet(rs.getString("snippet"))
+                .rank(rs.getDouble("rank"))
+                .build());
+    }
+}
@@ -0,0 +1,101 @@
+package com.emocional.diary.repository;
+
+import com.emocional.diary.dto.EntryCursor;
+import com.emocional.diary.model.DiaryEntry;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Condiciones reutilizables para filtrar entradas de diario con la API Criteria.
+ * Cada método devuelve null si no recibe valor, y Specification.and ignora los null, de modo que los
+ * filtros se pueden componer sin comprobar cuáles vienen informados.
+ */
+public final class DiaryEntrySpecifications {
+
+    private DiaryEntrySpecifications() {
+    }
+
+    public static Specification<DiaryEntry> ownedBy(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("userId"), userId);
+    }
+
+    /**
+     * Categoría del diccionario de emociones (usa el índice sobre emotion_id).
+     */
+    public static Specification<DiaryEntry> emotionIdIs(Short emotionId) {
+        if (emotionId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("emotionId"), emotionId);
+    }
+
+    /**
+     * Emoción fuera del diccionario (emotion_id nulo), comparada sin distinguir mayúsculas.
+     */
+    public static Specification<DiaryEntry> unclassifiedEmotionIs(String emotion) {
+        if (emotion == null || emotion.isBlank()) {
+            return null;
+        }
+        String normalized = emotion.trim().toLowerCase(Locale.ROOT);
+        return (root, query, cb) -> cb.and(
+                cb.isNull(root.get("emotionId")),
+                cb.equal(cb.lower(root.<String>get("aiEmotion")), normalized));
+    }
+
+    public static Specification<DiaryEntry> worryIs(String worry) {
+        if (worry == null || worry.isBlank()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("mainWorry"), worry.trim());
+    }
+
+    /**
+     * Rango inclusivo sobre un atributo entero; cualquiera de los extremos puede faltar.
+     */
+    public static Specification<DiaryEntry> between(String attribute, Integer min, Integer max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (min == null) {
+                return cb.lessThanOrEqualTo(root.<Integer>get(attribute), max);
+            }
+            if (max == null) {
+                return cb.greaterThanOrEqualTo(root.<Integer>get(attribute), min);
+            }
+            return cb.between(root.<Integer>get(attribute), min, max);
+        };
+    }
+
+    /**
+     * Entradas creadas en [from, to).
+     */
+    public static Specification<DiaryEntry> createdBetween(Instant from, Instant to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (from == null) {
+                return cb.lessThan(root.<Instant>get("createdAt"), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.<Instant>get("createdAt"), from);
+            }
+            return cb.and(cb.greaterThanOrEqualTo(root.<Instant>get("createdAt"), from), cb.lessThan(root.<Instant>get("createdAt"), to));
+        };
+    }
+
+    /**
+     * Entradas posteriores a la posición del cursor en el orden (createdAt DESC, id DESC).
+     */
+    public static Specification<DiaryEntry> after(EntryCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.<Instant>get("createdAt"), cursor.createdAt()),
+                cb.and(cb.equal(root.<Instant>get("createdAt"), cursor.createdAt()), cb.lessThan(root.<Long>get("id"), cursor.id())));
+    }
+}
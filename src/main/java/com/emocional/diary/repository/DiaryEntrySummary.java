@@ -0,0 +1,21 @@
+package com.emocional.diary.repository;
+
+import java.time.Instant;
+
+/**
+ * Proyección de DiaryEntry con las columnas del listado del historial.
+ * No incluye content completo, aiSummary ni aiKeywords: solo un prefijo del texto para la vista previa.
+ * @param id ID de la entrada.
+ * @param createdAt Fecha de creación (también posición del cursor).
+ * @param userMoodRating Ánimo reportado.
+ * @param userStressLevel Estrés reportado.
+ * @param aiEmotion Emoción detectada por la IA.
+ * @param contentPrefix Primeros caracteres del contenido, recortados por la base de datos.
+ */
+public record DiaryEntrySummary(Long id,
+                                Instant createdAt,
+                                Integer userMoodRating,
+                                Integer userStressLevel,
+                                String aiEmotion,
+                                String contentPrefix) {
+}
@@ -0,0 +1,10 @@
+package com.emocional.diary.repository;
+
+import com.emocional.diary.model.Emotion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repositorio del diccionario de emociones.
+ */
+public interface EmotionRepository extends JpaRepository<Emotion, Short> {
+}
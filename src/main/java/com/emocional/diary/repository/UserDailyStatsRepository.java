@@ -0,0 +1,93 @@
+package com.emocional.diary.repository;
+
+import com.emocional.diary.model.UserDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repositorio del agregado diario de estadísticas por usuario.
+ */
+public interface UserDailyStatsRepository extends JpaRepository<UserDailyStats, UserDailyStats.Key> {
+
+    /**
+     * Días con entradas del usuario en el rango [from, to], en orden cronológico.
+     * @param userId ID del usuario.
+     * @param from Primer día (incluido).
+     * @param to Último día (incluido).
+     * @return Agregados diarios del rango; los días sin entradas no aparecen.
+     */
+    List<UserDailyStats> findByUserIdAndStatDateBetweenOrderByStatDateAsc(Long userId, LocalDate from, LocalDate to);
+
+    /**
+     * Recalcula la fila de un día a partir de sus entradas (una, salvo datos antiguos) y la inserta o
+     * reemplaza. Se ejecuta en la transacción de la escritura, así el agregado nunca queda desfasado.
+     * Lee solo las entradas del día por el índice (user_id, created_at).
+     * @param userId ID del usuario.
+     * @param day Día en la zona del diario.
+     * @param start Inicio del día (incluido).
+     * @param end Inicio del día siguiente (excluido).
+     * @return Filas insertadas o actualizadas.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_daily_stats (user_id, stat_date, entry_count, stress_sum, stress_count,
+                                          sleep_sum, sleep_count, mood_sum, mood_count, dominant_emotion)
+            SELECT :userId, :day, COUNT(*),
+                   COALESCE(SUM(user_stress_level), 0), COUNT(user_stress_level),
+                   COALESCE(SUM(user_sleep_hours), 0), COUNT(user_sleep_hours),
+                   COALESCE(SUM(user_mood_rating), 0), COUNT(user_mood_rating),
+                   mode() WITHIN GROUP (ORDER BY ai_emotion)
+            FROM diary_entry
+            WHERE user_id = :userId AND created_at >= :start AND created_at < :end
+            ON CONFLICT (user_id, stat_date) DO UPDATE SET
+                entry_count = EXCLUDED.entry_count,
+                stress_sum = EXCLUDED.stress_sum, stress_count = EXCLUDED.stress_count,
+                sleep_sum = EXCLUDED.sleep_sum, sleep_count = EXCLUDED.sleep_count,
+                mood_sum = EXCLUDED.mood_sum, mood_count = EXCLUDED.mood_count,
+                dominant_emotion = EXCLUDED.dominant_emotion
+            """, nativeQuery = true)
+    int refreshDay(@Param("userId") Long userId,
+                   @Param("day") LocalDate day,
+                   @Param("start") Instant start,
+                   @Param("end") Instant end);
+
+    /**
+     * Recalcula todos los días con entradas del usuario en [start, end), agrupando por día en la zona dada.
+     * Usado tras la importación masiva, donde un lote abarca muchos días.
+     * @param userId ID del usuario.
+     * @param zone Zona del diario (ID de ZoneId).
+     * @param start Inicio del primer día (incluido).
+     * @param end Inicio del día siguiente al último (excluido).
+     * @return Filas insertadas o actualizadas.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_daily_stats (user_id, stat_date, entry_count, stress_sum, stress_count,
+                                          sleep_sum, sleep_count, mood_sum, mood_count, dominant_emotion)
+            SELECT :userId, day, COUNT(*),
+                   COALESCE(SUM(user_stress_level), 0), COUNT(user_stress_level),
+                   COALESCE(SUM(user_sleep_hours), 0), COUNT(user_sleep_hours),
+                   COALESCE(SUM(user_mood_rating), 0), COUNT(user_mood_rating),
+                   mode() WITHIN GROUP (ORDER BY ai_emotion)
+            FROM (SELECT e.*, (e.created_at AT TIME ZONE :zone)::date AS day
+                  FROM diary_entry e
+                  WHERE e.user_id = :userId AND e.created_at >= :start AND e.created_at < :end) d
+            GROUP BY day
+            ON CONFLICT (user_id, stat_date) DO UPDATE SET
+                entry_count = EXCLUDED.entry_count,
+                stress_sum = EXCLUDED.stress_sum, stress_count = EXCLUDED.stress_count,
+                sleep_sum = EXCLUDED.sleep_sum, sleep_count = EXCLUDED.sleep_count,
+                mood_sum = EXCLUDED.mood_sum, mood_count = EXCLUDED.mood_count,
+                dominant_emotion = EXCLUDED.dominant_emotion
+            """, nativeQuery = true)
+    int refreshDays(@Param("userId") Long userId,
+                    @Param("zone") String zone,
+                    @Param("start") Instant start,
+                    @Param("end") Instant end);
+}
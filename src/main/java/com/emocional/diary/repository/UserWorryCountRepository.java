@@ -0,0 +1,74 @@
+package com.emocional.diary.repository;
+
+import com.emocional.diary.model.UserWorryCount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Repositorio de los contadores de preocupaciones por usuario.
+ */
+public interface UserWorryCountRepository extends JpaRepository<UserWorryCount, UserWorryCount.Key> {
+
+    /**
+     * Las preocupaciones más frecuentes del usuario, leídas en orden del índice (user_id, entry_count DESC, worry).
+     * @param userId ID del usuario.
+     * @param pageable Número de preocupaciones a devolver (k).
+     * @return Contadores de mayor a menor; en empate, por orden alfabético.
+     */
+    @Query("SELECT c FROM UserWorryCount c WHERE c.userId = :userId ORDER BY c.entryCount DESC, c.worry ASC")
+    List<UserWorryCount> findTopByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Suma una entrada al contador, creándolo si no existe.
+     * @param userId ID del usuario.
+     * @param worry Preocupación principal.
+     * @return Filas insertadas o actualizadas.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_worry_count (user_id, worry, entry_count) VALUES (:userId, :worry, 1)
+            ON CONFLICT (user_id, worry) DO UPDATE SET entry_count = user_worry_count.entry_count + 1
+            """, nativeQuery = true)
+    int increment(@Param("userId") Long userId, @Param("worry") String worry);
+
+    /**
+     * Suma varias entradas al contador, creándolo si no existe (importación masiva).
+     * @param userId ID del usuario.
+     * @param worry Preocupación principal.
+     * @param count Número de entradas a sumar.
+     * @return Filas insertadas o actualizadas.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_worry_count (user_id, worry, entry_count) VALUES (:userId, :worry, :count)
+            ON CONFLICT (user_id, worry) DO UPDATE SET entry_count = user_worry_count.entry_count + EXCLUDED.entry_count
+            """, nativeQuery = true)
+    int add(@Param("userId") Long userId, @Param("worry") String worry, @Param("count") int count);
+
+    /**
+     * Resta una entrada al contador.
+     * @param userId ID del usuario.
+     * @param worry Preocupación principal.
+     * @return Filas actualizadas.
+     */
+    @Modifying
+    @Query(value = "UPDATE user_worry_count SET entry_count = entry_count - 1 WHERE user_id = :userId AND worry = :worry",
+           nativeQuery = true)
+    int decrement(@Param("userId") Long userId, @Param("worry") String worry);
+
+    /**
+     * Elimina el contador si ya no le queda ninguna entrada.
+     * @param userId ID del usuario.
+     * @param worry Preocupación principal.
+     * @return Filas eliminadas.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM user_worry_count WHERE user_id = :userId AND worry = :worry AND entry_count <= 0",
+           nativeQuery = true)
+    int deleteIfEmpty(@Param("userId") Long userId, @Param("worry") String worry);
+}
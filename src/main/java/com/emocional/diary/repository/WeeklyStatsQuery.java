@@ -0,0 +1,88 @@
+package com.emocional.diary.repository;
+
+import com.emocional.diary.dto.StressHistoryItem;
+import com.emocional.diary.dto.WeeklyStatsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consulta de las estadísticas semanales en un solo viaje a la base de datos.
+ * Devuelve una fila por cada uno de los últimos 7 días con el estrés medio del día; las medias de la
+ * semana actual y la anterior (agregación condicional con FILTER sobre user_daily_stats) y la
+ * preocupación más frecuente (primera fila de user_worry_count) van repetidas en cada fila y se
+ * calculan una sola vez.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WeeklyStatsQuery {
+
+    private static final String SQL = """
+            WITH bounds AS (
+                SELECT (now() AT TIME ZONE :zone)::date AS today
+            ),
+            totals AS (
+                SELECT SUM(s.stress_sum)   FILTER (WHERE s.stat_date >  b.today - 7) AS cur_stress_sum,
+                       SUM(s.stress_count) FILTER (WHERE s.stat_date >  b.today - 7) AS cur_stress_count,
+                       SUM(s.sleep_sum)    FILTER (WHERE s.stat_date >  b.today - 7) AS cur_sleep_sum,
+                       SUM(s.sleep_count)  FILTER (WHERE s.stat_date >  b.today - 7) AS cur_sleep_count,
+                       SUM(s.stress_sum)   FILTER (WHERE s.stat_date <= b.today - 7) AS prev_stress_sum,
+                       SUM(s.stress_count) FILTER (WHERE s.stat_date <= b.today - 7) AS prev_stress_count
+                FROM bounds b
+                LEFT JOIN user_daily_stats s
+                       ON s.user_id = :userId AND s.stat_date BETWEEN b.today - 13 AND b.today
+            )
+            SELECT d.day::date AS day,
+                   COALESCE(s.stress_sum::float8 / NULLIF(s.stress_count, 0), 0)           AS day_stress,
+                   COALESCE(t.cur_stress_sum::float8 / NULLIF(t.cur_stress_count, 0), 0)   AS average_stress,
+                   COALESCE(t.prev_stress_sum::float8 / NULLIF(t.prev_stress_count, 0), 0) AS previous_week_stress,
+                   COALESCE(t.cur_sleep_sum::float8 / NULLIF(t.cur_sleep_count, 0), 0)     AS average_sleep,
+                   (SELECT w.worry
+                    FROM user_worry_count w
+                    WHERE w.user_id = :userId
+                    ORDER BY w.entry_count DESC, w.worry
+                    LIMIT 1)                                                              AS main_worry
+            FROM bounds b
+            CROSS JOIN totals t
+            CROSS JOIN generate_series((b.today - 6)::timestamp, b.today::timestamp, interval '1 day') AS d(day)
+            LEFT JOIN user_daily_stats s ON s.user_id = :userId AND s.stat_date = d.day::date
+            ORDER BY d.day
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * @param userId ID del usuario.
+     * @param zone Zona del diario: define "hoy" y los días de user_daily_stats.
+     * @return Estadísticas de los últimos 7 días frente a los 7 anteriores; mainWorry es null si no hay ninguna.
+     */
+    public WeeklyStatsResponse findWeeklyStats(Long userId, ZoneId zone) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("zone", zone.getId());
+
+        return jdbcTemplate.query(SQL, params, rs -> {
+            WeeklyStatsResponse.WeeklyStatsResponseBuilder response = WeeklyStatsResponse.builder();
+            List<StressHistoryItem> stressHistory = new ArrayList<>(7);
+            while (rs.next()) {
+                if (stressHistory.isEmpty()) {
+                    response.averageStress(rs.getDouble("average_stress"))
+                            .previousWeekStress(rs.getDouble("previous_week_stress"))
+                            .averageSleep(rs.getDouble("average_sleep"))
+                            .mainWorry(rs.getString("main_worry"));
+                }
+                stressHistory.add(StressHistoryItem.builder()
+                        .date(rs.getObject("day", LocalDate.class))
+                        .value(rs.getDouble("day_stress"))
+                        .build());
+            }
+            return response.stressHistory(stressHistory).build();
+        });
+    }
+}
@@ -0,0 +1,178 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import com.emocional.diary.model.AnalysisCacheEntry;
+import com.emocional.diary.repository.AnalysisCacheRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Cache direccionado por contenido para los resultados del análisis de sentimientos.
+ * Nivel 1: cache en memoria (Caffeine) acotado por tamaño y TTL.
+ * Nivel 2 (opcional): tabla analysis_cache en PostgreSQL, que sobrevive a reinicios.
+ * Las métricas de aciertos, fallos y desalojos se publican en /actuator/metrics.
+ */
+@Service
+@Slf4j
+public class AnalysisCacheService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final AnalysisCacheRepository analysisCacheRepository;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, GeminiAnalysisResponse> memoryCache;
+    private final Counter persistentHits;
+    private final Counter persistentMisses;
+
+    @Value("${diary.analysis.cache.persistent.enabled:false}")
+    private boolean persistentEnabled;
+
+    @Value("${diary.analysis.cache.persistent.ttl-days:30}")
+    private long persistentTtlDays;
+
+    public AnalysisCacheService(AnalysisCacheRepository analysisCacheRepository,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${diary.analysis.cache.max-size:10000}") long maxSize,
+                                @Value("${diary.analysis.cache.ttl-minutes:1440}") long ttlMinutes) {
+        this.analysisCacheRepository = analysisCacheRepository;
+        this.objectMapper = objectMapper;
+        this.memoryCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memoryCache, "gemini.analysis");
+        this.persistentHits = Counter.builder("gemini.analysis.cache.persistent")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.persistentMisses = Counter.builder("gemini.analysis.cache.persistent")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Calcula la clave del cache: SHA-256 del contenido normalizado más la versión de prompt/modelo.
+     * La normalización (Unicode NFC, recorte y colapso de espacios) hace que guardar el mismo
+     * texto con diferencias de espaciado reutilice el resultado.
+     * @param content Texto del diario.
+     * @param analysisVersion Versión de prompt y modelo (ver GeminiService.getAnalysisVersion()).
+     * @return Hash hexadecimal de 64 caracteres.
+     */
+    public String keyFor(String content, String analysisVersion) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(content, Normalizer.Form.NFC).trim()).replaceAll(" ");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(analysisVersion.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible en la JVM", e);
+        }
+    }
+
+    /**
+     * Busca un análisis en memoria y, si no está, en el nivel persistente (promoviéndolo a memoria).
+     * Un fallo de la base de datos se trata como un fallo de cache, nunca como un error.
+     */
+    public Optional<GeminiAnalysisResponse> get(String key) {
+        GeminiAnalysisResponse cached = memoryCache.getIfPresent(key);
+        if (cached != null || !persistentEnabled) {
+            return Optional.ofNullable(cached);
+        }
+
+        try {
+            Instant threshold = Instant.now().minus(Duration.ofDays(persistentTtlDays));
+            Optional<GeminiAnalysisResponse> stored = analysisCacheRepository.findById(key)
+                    .filter(entry -> entry.getCreatedAt().isAfter(threshold))
+                    .map(this::deserialize);
+            if (stored.isPresent()) {
+                persistentHits.increment();
+                memoryCache.put(key, stored.get());
+            } else {
+                persistentMisses.increment();
+            }
+            return stored;
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo leer el cache persistente de análisis: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Guarda un análisis en memoria y, si está activo, en el nivel persistente.
+     * Se llama desde el hilo de Netty que recibe la respuesta de Gemini: solo la escritura en Caffeine
+     * es síncrona; el INSERT (JPA, bloqueante) se lanza en boundedElastic sin esperar a que termine.
+     */
+    public void put(String key, GeminiAnalysisResponse analysis) {
+        memoryCache.put(key, analysis);
+        if (!persistentEnabled) {
+            return;
+        }
+
+        String payload;
+        try {
+            // Se serializa aquí: el llamador puede seguir modificando el objeto después
+            payload = objectMapper.writeValueAsString(analysis);
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo guardar el análisis en el cache persistente: {}", e.getMessage());
+            return;
+        }
+        Mono.fromRunnable(() -> persist(key, payload))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+    }
+
+    private void persist(String key, String payload) {
+        try {
+            analysisCacheRepository.save(AnalysisCacheEntry.builder()
+                    .contentHash(key)
+                    .payload(payload)
+                    .createdAt(Instant.now())
+                    .build());
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo guardar el análisis en el cache persistente: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina diariamente las entradas del nivel persistente que superaron su TTL.
+     */
+    @Scheduled(cron = "${diary.analysis.cache.persistent.purge-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        if (!persistentEnabled) {
+            return;
+        }
+        int deleted = analysisCacheRepository.deleteOlderThan(Instant.now().minus(Duration.ofDays(persistentTtlDays)));
+        log.info("Cache persistente de análisis: {} entradas expiradas eliminadas", deleted);
+    }
+
+    private GeminiAnalysisResponse deserialize(AnalysisCacheEntry entry) {
+        try {
+            return objectMapper.readValue(entry.getPayload(), GeminiAnalysisResponse.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Entrada de cache de análisis corrupta: " + entry.getContentHash(), e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.repository.UserDailyStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Mantiene la tabla user_daily_stats al día con las escrituras de diary_entry.
+ * Se llama dentro de la transacción que crea o modifica la entrada, después de volcarla a la base de datos.
+ */
+@Service
+@RequiredArgsConstructor
+public class DailyStatsRollupService {
+
+    private final UserDailyStatsRepository userDailyStatsRepository;
+    private final ZoneId diaryZoneId;
+
+    /**
+     * Recalcula el agregado del día al que pertenece una entrada.
+     * @param userId ID del usuario propietario.
+     * @param createdAt Fecha de creación de la entrada escrita.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshDayOf(Long userId, Instant createdAt) {
+        LocalDate day = createdAt.atZone(diaryZoneId).toLocalDate();
+        Instant start = day.atStartOfDay(diaryZoneId).toInstant();
+        Instant end = day.plusDays(1).atStartOfDay(diaryZoneId).toInstant();
+        userDailyStatsRepository.refreshDay(userId, day, start, end);
+    }
+
+    /**
+     * Recalcula los agregados de todos los días entre dos entradas (ambos días incluidos).
+     * @param userId ID del usuario propietario.
+     * @param first Fecha de creación de la entrada más antigua escrita.
+     * @param last Fecha de creación de la entrada más reciente escrita.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshDaysBetween(Long userId, Instant first, Instant last) {
+        Instant start = first.atZone(diaryZoneId).toLocalDate().atStartOfDay(diaryZoneId).toInstant();
+        Instant end = last.atZone(diaryZoneId).toLocalDate().plusDays(1).atStartOfDay(diaryZoneId).toInstant();
+        userDailyStatsRepository.refreshDays(userId, diaryZoneId.getId(), start, end);
+    }
+}
@@ -0,0 +1,215 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import com.emocional.diary.event.AnalysisRequestedEvent;
+import com.emocional.diary.exception.ExternalServiceException;
+import com.emocional.diary.model.AnalysisStatus;
+import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.repository.DiaryEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Worker que completa en segundo plano el análisis de IA de las entradas en estado PENDING
+ * y re-analiza con Gemini las que quedaron en FALLBACK durante una caída.
+ * La llamada a Gemini se hace fuera de cualquier transacción, de modo que ni un hilo de Tomcat
+ * ni una conexión del pool de base de datos quedan retenidos durante la espera.
+ */
+@Service
+@Slf4j
+public class DiaryAnalysisWorker {
+
+    private final DiaryEntryRepository diaryEntryRepository;
+    private final SentimentAnalysisService sentimentAnalysisService;
+    private final DailyStatsRollupService dailyStatsRollupService;
+    private final EmotionDictionary emotionDictionary;
+    private final ThreadPoolTaskExecutor analysisExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    // Entradas que ya están encoladas o en análisis en este nodo, para no duplicar trabajo. El valor indica
+    // que llegó otro submit mientras tanto (p. ej. se editó la entrada) y hay que volver a pasar al terminar.
+    private final Map<Long, Boolean> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${diary.analysis.async.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${diary.analysis.async.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${diary.analysis.async.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${diary.analysis.recovery.batch-size:50}")
+    private int recoveryBatchSize;
+
+    public DiaryAnalysisWorker(DiaryEntryRepository diaryEntryRepository,
+                               SentimentAnalysisService sentimentAnalysisService,
+                               DailyStatsRollupService dailyStatsRollupService,
+                               EmotionDictionary emotionDictionary,
+                               @Qualifier("analysisExecutor") ThreadPoolTaskExecutor analysisExecutor,
+                               PlatformTransactionManager transactionManager) {
+        this.diaryEntryRepository = diaryEntryRepository;
+        this.sentimentAnalysisService = sentimentAnalysisService;
+        this.dailyStatsRollupService = dailyStatsRollupService;
+        this.emotionDictionary = emotionDictionary;
+        this.analysisExecutor = analysisExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Encola el análisis una vez confirmada la transacción que dejó la entrada en PENDING.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAnalysisRequested(AnalysisRequestedEvent event) {
+        submit(event.entryId());
+    }
+
+    /**
+     * Recupera periódicamente las entradas que siguen en PENDING (por ejemplo, tras un reinicio
+     * o porque la cola estaba llena) y las vuelve a encolar. Las entradas en FALLBACK solo se
+     * encolan cuando el circuito de Gemini está cerrado.
+     */
+    @Scheduled(initialDelayString = "${diary.analysis.recovery.initial-delay-ms:10000}",
+               fixedDelayString = "${diary.analysis.recovery.interval-ms:60000}")
+    public void recoverPending() {
+        List<Long> pendingIds = diaryEntryRepository.findIdsByAnalysisStatus(
+                AnalysisStatus.PENDING, maxAttempts, PageRequest.of(0, recoveryBatchSize));
+        if (!pendingIds.isEmpty()) {
+            log.info("Recuperando {} entradas con análisis pendiente", pendingIds.size());
+            pendingIds.forEach(this::submit);
+        }
+
+        if (sentimentAnalysisService.isGeminiAvailable()) {
+            List<Long> fallbackIds = diaryEntryRepository.findIdsByAnalysisStatus(
+                    AnalysisStatus.FALLBACK, maxAttempts, PageRequest.of(0, recoveryBatchSize));
+            if (!fallbackIds.isEmpty()) {
+                log.info("Re-analizando con Gemini {} entradas analizadas localmente", fallbackIds.size());
+                fallbackIds.forEach(this::submit);
+            }
+        }
+    }
+
+    /**
+     * Envía una entrada al pool de workers. Si la cola está llena, la entrada sigue en PENDING
+     * y será tomada por la siguiente ejecución de la recuperación. Si ya está en curso, se marca
+     * para que la tarea actual la vuelva a encolar al terminar.
+     * @param entryId ID de la entrada a analizar.
+     */
+    public void submit(Long entryId) {
+        if (inFlight.merge(entryId, Boolean.FALSE, (running, ignored) -> Boolean.TRUE)) {
+            return;
+        }
+        try {
+            analysisExecutor.execute(() -> analyze(entryId));
+        } catch (TaskRejectedException e) {
+            inFlight.remove(entryId);
+            log.warn("⚠️ Cola de análisis llena, la entrada {} se recuperará más tarde", entryId);
+        }
+    }
+
+    private void analyze(Long entryId) {
+        try {
+            String content = transactionTemplate.execute(status -> diaryEntryRepository.findById(entryId)
+                    .filter(entry -> entry.getAnalysisStatus() == AnalysisStatus.PENDING
+                            || entry.getAnalysisStatus() == AnalysisStatus.FALLBACK)
+                    .map(DiaryEntry::getContent)
+                    .orElse(null));
+
+            if (content == null) {
+                return;
+            }
+
+            GeminiAnalysisResponse analysis = sentimentAnalysisService.analyzeWithGemini(content)
+                    .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(retryBackoffMs)))
+                    .block();
+
+            if (analysis == null || analysis.getEmotion() == null) {
+                throw new ExternalServiceException("El análisis de sentimientos por Gemini ha fallado o la respuesta es nula.");
+            }
+
+            Boolean applied = transactionTemplate.execute(status -> diaryEntryRepository.findById(entryId).map(entry -> {
+                // Si el contenido cambió mientras se analizaba, la entrada conserva su estado para un nuevo análisis.
+                if (!content.equals(entry.getContent())) {
+                    return false;
+                }
+                emotionDictionary.applyTo(entry, analysis.getEmotion());
+                entry.setAiIntensity(analysis.getIntensity());
+                entry.setAiKeywords(analysis.getKeywords());
+                entry.setAiSummary(analysis.getSummary());
+                entry.setAnalysisStatus(AnalysisStatus.DONE);
+                entry.setAnalysisAttempts(0);
+                refreshDailyStats(entry);
+                return true;
+            }).orElse(true));
+
+            if (!Boolean.TRUE.equals(applied)) {
+                log.info("El contenido de la entrada {} cambió durante el análisis, se vuelve a encolar", entryId);
+                inFlight.put(entryId, Boolean.TRUE);
+                return;
+            }
+            log.info("✅ Análisis en segundo plano completado - Entrada: {}, Emoción: {}", entryId, analysis.getEmotion());
+
+        } catch (Exception e) {
+            log.error("❌ Falló el análisis en segundo plano de la entrada {}: {}", entryId, e.getMessage());
+            registerFailedAttempt(entryId);
+        } finally {
+            // remove es atómico con el merge de submit: o se ve la marca aquí o el submit encola de nuevo
+            if (Boolean.TRUE.equals(inFlight.remove(entryId))) {
+                submit(entryId);
+            }
+        }
+    }
+
+    /**
+     * Suma un intento fallido. Una entrada PENDING que agota los intentos recibe el resultado del
+     * analizador local (FALLBACK, con el contador a cero para re-analizarla cuando Gemini vuelva);
+     * una entrada FALLBACK que los agota queda en FAILED conservando ese resultado local.
+     */
+    private void registerFailedAttempt(Long entryId) {
+        transactionTemplate.executeWithoutResult(status -> diaryEntryRepository.findById(entryId).ifPresent(entry -> {
+            int attempts = (entry.getAnalysisAttempts() != null ? entry.getAnalysisAttempts() : 0) + 1;
+            entry.setAnalysisAttempts(attempts);
+            if (attempts < maxAttempts) {
+                return;
+            }
+            if (entry.getAnalysisStatus() == AnalysisStatus.PENDING) {
+                GeminiAnalysisResponse local = sentimentAnalysisService.analyzeLocally(entry.getContent());
+                emotionDictionary.applyTo(entry, local.getEmotion());
+                entry.setAiIntensity(local.getIntensity());
+                entry.setAiKeywords(local.getKeywords());
+                entry.setAiSummary(local.getSummary());
+                entry.setAnalysisStatus(AnalysisStatus.FALLBACK);
+                entry.setAnalysisAttempts(0);
+                refreshDailyStats(entry);
+                log.warn("⚠️ Entrada {} analizada localmente tras {} intentos fallidos con Gemini", entryId, attempts);
+            } else {
+                entry.setAnalysisStatus(AnalysisStatus.FAILED);
+                log.warn("⚠️ Entrada {} marcada como FAILED tras {} intentos", entryId, attempts);
+            }
+        }));
+    }
+
+    /**
+     * La emoción de la entrada cambió: se vuelca y se recalcula la emoción dominante de su día.
+     */
+    private void refreshDailyStats(DiaryEntry entry) {
+        diaryEntryRepository.saveAndFlush(entry);
+        dailyStatsRollupService.refreshDayOf(entry.getUserId(), entry.getCreatedAt());
+    }
+}
@@ -4,8 +4,15 @@ import java.util.List;
 import java.util.Optional;
 
 
+import com.emocional.diary.dto.CursorPageResponse;
+import com.emocional.diary.dto.DiaryEntryFilter;
 import com.emocional.diary.dto.DiaryEntryRequest;
 import com.emocional.diary.dto.DiaryEntryResponse;
+import com.emocional.diary.dto.DiaryEntrySummaryResponse;
+import com.emocional.diary.dto.DiarySearchResult;
+import com.emocional.diary.dto.EntryCursor;
+import com.emocional.diary.dto.SearchCursor;
+import reactor.core.publisher.Mono;
 
 
 
@@ -20,11 +27,14 @@ public interface DiaryEntryService {
 	/**
      * Crea una nueva entrada de diario.
      * Realiza validación de límite diario, llama al servicio Gemini para análisis y guarda la entrada.
+     * Con diary.analysis.async.enabled=true la entrada se guarda en estado PENDING y el análisis
+     * se completa en segundo plano.
+     * La espera a Gemini no bloquea ningún hilo: la entrada se guarda cuando llega el análisis.
      * @param userId El ID del usuario autenticado.
      * @param request El DTO con los datos de la entrada.
-     * @return El DTO de respuesta con los datos de la entrada guardada y analizada.
+     * @return Mono con el DTO de respuesta de la entrada guardada y analizada.
      */
-    DiaryEntryResponse createEntry(Long userId, DiaryEntryRequest request);
+    Mono<DiaryEntryResponse> createEntry(Long userId, DiaryEntryRequest request);
 
     /**
      * Obtiene una entrada de diario por su ID, asegurando que pertenece al usuario.
@@ -41,14 +51,47 @@ public interface DiaryEntryService {
      */
     List<DiaryEntryResponse> getAllEntriesByUserId(Long userId);
 
+    /**
+     * Obtiene una página de entradas del usuario, ordenadas por fecha descendente, usando
+     * paginación por cursor (createdAt, id).
+     * @param userId El ID del usuario autenticado.
+     * @param filter Filtros opcionales (emoción, intensidad, estrés, ánimo, preocupación, fechas); null o vacío para no filtrar.
+     * @param cursor Posición de la última entrada de la página anterior, o null para la primera página.
+     * @param limit Tamaño de página solicitado (se acota al máximo configurado).
+     * @return La página con las entradas y el cursor de la siguiente.
+     */
+    CursorPageResponse<DiaryEntryResponse> getEntriesPage(Long userId, DiaryEntryFilter filter, EntryCursor cursor, Integer limit);
+
+    /**
+     * Igual que getEntriesPage pero con la vista resumida del historial (fecha, ánimo, estrés, emoción
+     * y una vista previa del texto), leída con una proyección en lugar de entidades completas.
+     * @param userId El ID del usuario autenticado.
+     * @param filter Filtros opcionales; null o vacío para no filtrar.
+     * @param cursor Posición de la última entrada de la página anterior, o null para la primera página.
+     * @param limit Tamaño de página solicitado (se acota al máximo configurado).
+     * @return La página de resúmenes con el cursor de la siguiente.
+     */
+    CursorPageResponse<DiaryEntrySummaryResponse> getEntrySummariesPage(Long userId, DiaryEntryFilter filter, EntryCursor cursor, Integer limit);
+
+    /**
+     * Busca en el contenido, el resumen de IA y la preocupación de las entradas del usuario (texto completo,
+     * configuración spanish), de la más relevante a la menos relevante, paginando por cursor.
+     * @param userId El ID del usuario autenticado.
+     * @param query Texto de búsqueda.
+     * @param cursor Posición del último resultado de la página anterior, o null para la primera página.
+     * @param limit Tamaño de página solicitado (se acota al máximo configurado).
+     * @return La página de resultados con el cursor de la siguiente.
+     */
+    CursorPageResponse<DiarySearchResult> searchEntries(Long userId, String query, SearchCursor cursor, Integer limit);
+
     /**
      * Actualiza una entrada de diario existente.
      * Verifica que la entrada pertenece al usuario y vuelve a analizar con IA si el contenido cambió.
      * @param userId El ID del usuario autenticado.
      * @param entryId El ID de la entrada a actualizar.
      * @param request El DTO con los nuevos datos de la entrada.
-     * @return El DTO de respuesta con los datos actualizados.
+     * @return Mono con el DTO de respuesta con los datos actualizados.
      */
-    DiaryEntryResponse updateEntry(Long userId, Long entryId, DiaryEntryRequest request);
+    Mono<DiaryEntryResponse> updateEntry(Long userId, Long entryId, DiaryEntryRequest request);
 
 }
@@ -1,17 +1,38 @@
 package com.emocional.diary.service;
 
+import com.emocional.diary.dto.CursorPageResponse;
+import com.emocional.diary.dto.DiaryEntryFilter;
 import com.emocional.diary.dto.DiaryEntryRequest;
 import com.emocional.diary.dto.DiaryEntryResponse;
+import com.emocional.diary.dto.DiaryEntrySummaryResponse;
+import com.emocional.diary.dto.DiarySearchResult;
+import com.emocional.diary.dto.EntryCursor;
+import com.emocional.diary.dto.SearchCursor;
 import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import com.emocional.diary.event.AnalysisRequestedEvent;
+import com.emocional.diary.event.DiaryEntryChangedEvent;
 import com.emocional.diary.exception.ExternalServiceException;
+import com.emocional.diary.model.AnalysisStatus;
 import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.model.Emotion;
 import com.emocional.diary.repository.DiaryEntryRepository;
+import com.emocional.diary.repository.DiaryEntrySearchQuery;
+import com.emocional.diary.repository.DiaryEntrySpecifications;
+import com.emocional.diary.repository.DiaryEntrySummary;
 import com.emocional.diary.mapper.DiaryEntryMapper; // Se añade la importación del Mapper
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import reactor.core.publisher.Mono; // Necesario ya que GeminiService devuelve Mono
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -27,44 +48,101 @@ import java.util.stream.Collectors; // Nuevo import para mapear listas
 @Slf4j
 public class DiaryEntryServiceImpl implements DiaryEntryService {
 
+    // Índice único (user_id, entry_date) de V1__baseline_schema.sql
+    private static final String ONE_ENTRY_PER_DAY_CONSTRAINT = "uk_diary_entry_user_entry_date";
+
     private final DiaryEntryRepository diaryEntryRepository;
-    private final GeminiService geminiService;
+    private final DiaryEntrySearchQuery diaryEntrySearchQuery;
+    private final SentimentAnalysisService sentimentAnalysisService;
     private final DiaryEntryMapper mapper; // INYECCIÓN DEL MAPPER
+    private final ApplicationEventPublisher eventPublisher;
+    private final DailyStatsRollupService dailyStatsRollupService;
+    private final WorryCounterService worryCounterService;
+    private final EmotionDictionary emotionDictionary;
+    private final TransactionTemplate transactionTemplate;
+    private final ZoneId diaryZoneId;
+
+    // Si está activo, la entrada se guarda en PENDING y el análisis lo completa DiaryAnalysisWorker.
+    @Value("${diary.analysis.async.enabled:false}")
+    private boolean asyncAnalysisEnabled;
+
+    @Value("${diary.listing.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${diary.listing.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${diary.listing.preview-length:160}")
+    private int previewLength;
 
     @Override
-    @Transactional
-    public DiaryEntryResponse createEntry(Long userId, DiaryEntryRequest request) {
+    public Mono<DiaryEntryResponse> createEntry(Long userId, DiaryEntryRequest request) {
         log.info("Iniciando creación de entrada para usuario: {}", userId);
 
-        Instant now = Instant.now();
-        LocalDate today = now.atZone(ZoneId.systemDefault()).toLocalDate();
-        Instant startOfDay = today.atStartOfDay(ZoneId.systemDefault()).toInstant();
-        Instant endOfDay = today.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
-
-        // 1. Validar la restricción de "Una Entrada por Día"
-        List<DiaryEntry> existingEntriesToday = diaryEntryRepository.findByUserIdAndCreatedAtBetween(userId, startOfDay, endOfDay);
+        // 1. Validación de datos de entrada
+        if (request.getEntryText() == null || request.getEntryText().trim().isEmpty()) {
+            return Mono.error(new IllegalArgumentException("El contenido del diario no puede estar vacío."));
+        }
 
-        if (!existingEntriesToday.isEmpty()) {
+        // Comprobación barata antes de gastar un análisis; el índice único cubre las carreras entre peticiones
+        LocalDate today = LocalDate.now(diaryZoneId);
+        if (diaryEntryRepository.existsByUserIdAndEntryDate(userId, today)) {
             log.warn("❌ Intento de doble check-in para usuario: {}", userId);
-            throw new IllegalStateException("Solo se permite una entrada de diario por día.");
+            return Mono.error(new IllegalStateException("Solo se permite una entrada de diario por día."));
         }
-        
-        // 2. Validación de datos de entrada
-        if (request.getEntryText() == null || request.getEntryText().trim().isEmpty()) {
-            throw new IllegalArgumentException("El contenido del diario no puede estar vacío.");
+
+        // 2a. Motor local (LEXICON, o AUTO con pre-clasificación confiable): resultado inmediato
+        Optional<GeminiAnalysisResponse> localAnalysis = sentimentAnalysisService
+                .analyzeLocallyIfRouted(request.getEntryText(), request.getAnalysisEngine());
+
+        // 2b. Sin espera a Gemini (resultado local o análisis en segundo plano): se guarda en el hilo de la petición
+        if (localAnalysis.isPresent() || asyncAnalysisEnabled) {
+            return Mono.fromCallable(() -> transactionTemplate.execute(
+                    status -> saveEntry(userId, request, localAnalysis.orElse(null))));
         }
 
-        try {
-            // 3. Llamada a Gemini de forma sincrónica (blocking)
-            // Esto es correcto ya que estamos en un contexto de Spring Web (no WebFlux) y necesitamos el resultado
-            GeminiAnalysisResponse analysisResponse = geminiService.analyzeSentiment(request.getEntryText())
-                    .block(); 
-
-            if (analysisResponse == null || analysisResponse.getEmotion() == null) {
-                // Relanzamos la excepción específica para el fallo del servicio externo
-                throw new ExternalServiceException("El análisis de sentimientos por Gemini ha fallado o la respuesta es nula.");
-            }
+        // 2c. Gemini: mientras responde no se ocupa ningún hilo de la petición ni una conexión a la base de datos.
+        // La entrada se guarda al llegar el análisis, en boundedElastic porque JPA es bloqueante
+        return sentimentAnalysisService.analyze(request.getEntryText())
+                .filter(analysis -> analysis.getEmotion() != null)
+                .switchIfEmpty(Mono.error(() -> new ExternalServiceException(
+                        "El análisis de sentimientos por Gemini ha fallado o la respuesta es nula.")))
+                .publishOn(Schedulers.boundedElastic())
+                .map(analysis -> transactionTemplate.execute(status -> saveEntry(userId, request, analysis)));
+    }
+
+    /**
+     * Guarda la entrada con su análisis, o en PENDING para el worker en segundo plano si no lo hay.
+     * Debe llamarse dentro de una transacción.
+     */
+    private DiaryEntryResponse saveEntry(Long userId, DiaryEntryRequest request, GeminiAnalysisResponse analysisResponse) {
+        Instant now = Instant.now();
+        // La restricción de "Una Entrada por Día" la garantiza el índice único (user_id, entry_date)
+        LocalDate today = now.atZone(diaryZoneId).toLocalDate();
+
+        // Modo asíncrono: guardar de inmediato y delegar el análisis al worker en segundo plano
+        if (analysisResponse == null) {
+            DiaryEntry entry = DiaryEntry.builder()
+                    .userId(userId)
+                    .content(request.getEntryText())
+                    .userStressLevel(request.getStressLevel())
+                    .userMoodRating(request.getMoodRating())
+                    .userSleepHours(request.getSleepHours())
+                    .mainWorry(request.getMainWorry())
+                    .createdAt(now)
+                    .entryDate(today)
+                    .analysisStatus(AnalysisStatus.PENDING)
+                    .build();
 
+            DiaryEntry savedEntity = saveNewEntry(entry);
+            eventPublisher.publishEvent(new AnalysisRequestedEvent(savedEntity.getId()));
+            eventPublisher.publishEvent(new DiaryEntryChangedEvent(userId, savedEntity.getId()));
+
+            log.info("📥 Entrada guardada con análisis pendiente - ID: {}, Usuario: {}", savedEntity.getId(), userId);
+            return mapper.toResponseDto(savedEntity);
+        }
+
+        try {
             // 4. Crear la Entidad DiaryEntry
             DiaryEntry entry = DiaryEntry.builder()
             		 .userId(userId)
@@ -74,14 +152,18 @@ public class DiaryEntryServiceImpl implements DiaryEntryService {
                      .userSleepHours(request.getSleepHours())
                      .mainWorry(request.getMainWorry())
                      .createdAt(now) 
-                     .aiEmotion(analysisResponse.getEmotion())
+                     .entryDate(today)
                      .aiIntensity(analysisResponse.getIntensity())
                      .aiKeywords(analysisResponse.getKeywords())
                      .aiSummary(analysisResponse.getSummary())
+                     // FALLBACK: Gemini no estaba disponible, la recuperación la re-analizará
+                     .analysisStatus(analysisResponse.isFallback() ? AnalysisStatus.FALLBACK : AnalysisStatus.DONE)
                      .build();
+            emotionDictionary.applyTo(entry, analysisResponse.getEmotion());
 
             // Guardar la ENTIDAD
-            DiaryEntry savedEntity = diaryEntryRepository.save(entry);
+            DiaryEntry savedEntity = saveNewEntry(entry);
+            eventPublisher.publishEvent(new DiaryEntryChangedEvent(userId, savedEntity.getId()));
             
             // CONVERSIÓN CRÍTICA: Mapear la Entidad guardada al DTO de respuesta
             DiaryEntryResponse response = mapper.toResponseDto(savedEntity);
@@ -91,7 +173,7 @@ public class DiaryEntryServiceImpl implements DiaryEntryService {
 
             return response;
 
-        } catch (ExternalServiceException e) {
+        } catch (ExternalServiceException | IllegalStateException | DataIntegrityViolationException e) {
              throw e;
         } catch (Exception e) {
             log.error("❌ Error inesperado creando entrada de diario para {}: {}", userId, e.getMessage(), e);
@@ -99,6 +181,36 @@ public class DiaryEntryServiceImpl implements DiaryEntryService {
         }
     }
 
+    /**
+     * Inserta la entrada forzando el flush para que una violación del índice único (user_id, entry_date)
+     * se detecte aquí y se traduzca al error de negocio de "una entrada por día".
+     */
+    private DiaryEntry saveNewEntry(DiaryEntry entry) {
+        DiaryEntry saved;
+        try {
+            saved = diaryEntryRepository.saveAndFlush(entry);
+        } catch (DataIntegrityViolationException e) {
+            // Cualquier otra violación (NOT NULL, FK...) es un error real y no un doble check-in
+            if (!isOneEntryPerDayViolation(e)) {
+                throw e;
+            }
+            log.warn("❌ Intento de doble check-in para usuario: {}", entry.getUserId());
+            throw new IllegalStateException("Solo se permite una entrada de diario por día.");
+        }
+        dailyStatsRollupService.refreshDayOf(saved.getUserId(), saved.getCreatedAt());
+        worryCounterService.onWorryChanged(saved.getUserId(), null, saved.getMainWorry());
+        return saved;
+    }
+
+    private static boolean isOneEntryPerDayViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return ONE_ENTRY_PER_DAY_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<DiaryEntryResponse> getEntryById(Long userId, Long entryId) {
@@ -129,63 +241,211 @@ public class DiaryEntryServiceImpl implements DiaryEntryService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<DiaryEntryResponse> getEntriesPage(Long userId, DiaryEntryFilter filter, EntryCursor cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+
+        // Se pide un elemento extra para saber si hay más páginas sin ejecutar un COUNT
+        List<DiaryEntry> entries;
+        if (filter != null && !filter.isEmpty()) {
+            entries = diaryEntryRepository.findFilteredPage(toSpecification(userId, filter, cursor), pageSize + 1);
+        } else {
+            PageRequest page = PageRequest.of(0, pageSize + 1);
+            entries = cursor == null
+                    ? diaryEntryRepository.findFirstPageByUserId(userId, page)
+                    : diaryEntryRepository.findPageByUserIdAfter(userId, cursor.createdAt(), cursor.id(), page);
+        }
+
+        boolean hasMore = entries.size() > pageSize;
+        if (hasMore) {
+            entries = entries.subList(0, pageSize);
+        }
+        DiaryEntry last = entries.isEmpty() ? null : entries.get(entries.size() - 1);
+
+        return CursorPageResponse.<DiaryEntryResponse>builder()
+                .items(mapper.toResponseDtoList(entries))
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? new EntryCursor(last.getCreatedAt(), last.getId()).encode() : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<DiaryEntrySummaryResponse> getEntrySummariesPage(Long userId, DiaryEntryFilter filter, EntryCursor cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+
+        // Un carácter extra del contenido indica si la vista previa se recortó
+        List<DiaryEntrySummary> summaries;
+        if (filter != null && !filter.isEmpty()) {
+            summaries = diaryEntryRepository.findFilteredSummaryPage(
+                    toSpecification(userId, filter, cursor), previewLength + 1, pageSize + 1);
+        } else {
+            PageRequest page = PageRequest.of(0, pageSize + 1);
+            summaries = cursor == null
+                    ? diaryEntryRepository.findFirstSummaryPageByUserId(userId, previewLength + 1, page)
+                    : diaryEntryRepository.findSummaryPageByUserIdAfter(userId, cursor.createdAt(), cursor.id(), previewLength + 1, page);
+        }
+
+        boolean hasMore = summaries.size() > pageSize;
+        if (hasMore) {
+            summaries = summaries.subList(0, pageSize);
+        }
+        DiaryEntrySummary last = summaries.isEmpty() ? null : summaries.get(summaries.size() - 1);
+
+        return CursorPageResponse.<DiaryEntrySummaryResponse>builder()
+                .items(summaries.stream()
+                        .map(summary -> mapper.toSummaryDto(summary, previewLength))
+                        .collect(Collectors.toList()))
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? new EntryCursor(last.createdAt(), last.id()).encode() : null)
+                .build();
+    }
+
+    /**
+     * Traduce los filtros del listado a condiciones Criteria. Las fechas se interpretan como días
+     * completos en la zona del diario y se convierten a un rango sobre createdAt, que es la columna
+     * de los índices del listado.
+     */
+    private Specification<DiaryEntry> toSpecification(Long userId, DiaryEntryFilter filter, EntryCursor cursor) {
+        Instant from = filter.getFrom() == null ? null : filter.getFrom().atStartOfDay(diaryZoneId).toInstant();
+        Instant to = filter.getTo() == null ? null : filter.getTo().plusDays(1).atStartOfDay(diaryZoneId).toInstant();
+
+        // Una emoción del diccionario se filtra por su id, de modo que "ansioso" encuentra las entradas de "ansiedad"
+        Optional<Emotion> emotion = emotionDictionary.resolve(filter.getEmotion());
+        Specification<DiaryEntry> emotionFilter = emotion.isPresent()
+                ? DiaryEntrySpecifications.emotionIdIs(emotion.get().getId())
+                : DiaryEntrySpecifications.unclassifiedEmotionIs(filter.getEmotion());
+
+        return Specification.where(DiaryEntrySpecifications.ownedBy(userId))
+                .and(emotionFilter)
+                .and(DiaryEntrySpecifications.worryIs(filter.getWorry()))
+                .and(DiaryEntrySpecifications.between("aiIntensity", filter.getMinIntensity(), filter.getMaxIntensity()))
+                .and(DiaryEntrySpecifications.between("userStressLevel", filter.getMinStress(), filter.getMaxStress()))
+                .and(DiaryEntrySpecifications.between("userMoodRating", filter.getMinMood(), filter.getMaxMood()))
+                .and(DiaryEntrySpecifications.createdBetween(from, to))
+                .and(DiaryEntrySpecifications.after(cursor));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<DiarySearchResult> searchEntries(Long userId, String query, SearchCursor cursor, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("El texto de búsqueda no puede estar vacío.");
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+
+        List<DiarySearchResult> results = diaryEntrySearchQuery.search(userId, query.trim(),
+                cursor != null ? cursor.rank() : null,
+                cursor != null ? cursor.id() : null,
+                pageSize + 1);
+
+        boolean hasMore = results.size() > pageSize;
+        if (hasMore) {
+            results = results.subList(0, pageSize);
+        }
+        DiarySearchResult last = results.isEmpty() ? null : results.get(results.size() - 1);
+
+        return CursorPageResponse.<DiarySearchResult>builder()
+                .items(results)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? new SearchCursor(last.getRank(), last.getId()).encode() : null)
+                .build();
+    }
+
     /**
      * Actualiza una entrada de diario existente.
      * Verifica que la entrada pertenece al usuario y vuelve a analizar con IA si el contenido cambió.
+     * Como en createEntry, el análisis con Gemini se hace antes y fuera de la transacción: ni el hilo de la
+     * petición ni una conexión a la base de datos quedan retenidos mientras responde.
      */
     @Override
-    @Transactional
-    public DiaryEntryResponse updateEntry(Long userId, Long entryId, DiaryEntryRequest request) {
+    public Mono<DiaryEntryResponse> updateEntry(Long userId, Long entryId, DiaryEntryRequest request) {
         log.info("Iniciando actualización de entrada {} para usuario: {}", entryId, userId);
 
-        // 1. Buscar la entrada existente
-        DiaryEntry existingEntry = diaryEntryRepository.findById(entryId)
+        // 1. Validación de datos de entrada
+        if (request.getEntryText() == null || request.getEntryText().trim().isEmpty()) {
+            return Mono.error(new IllegalArgumentException("El contenido del diario no puede estar vacío."));
+        }
+
+        // 2. Buscar la entrada existente y verificar que pertenece al usuario
+        return Mono.fromCallable(() -> findOwnedEntry(userId, entryId))
+                .flatMap(existingEntry -> {
+                    // 3. Determinar si el contenido cambió (para re-analizar con IA)
+                    boolean contentChanged = !existingEntry.getContent().equals(request.getEntryText());
+                    Optional<GeminiAnalysisResponse> localAnalysis = contentChanged
+                            ? sentimentAnalysisService.analyzeLocallyIfRouted(request.getEntryText(), request.getAnalysisEngine())
+                            : Optional.empty();
+
+                    // 4a. Sin espera a Gemini: sin cambios de contenido, resultado local o análisis en segundo plano
+                    if (!contentChanged || localAnalysis.isPresent() || asyncAnalysisEnabled) {
+                        boolean queueAnalysis = contentChanged && localAnalysis.isEmpty();
+                        return Mono.fromCallable(() -> transactionTemplate.execute(status ->
+                                applyUpdate(userId, entryId, request, localAnalysis.orElse(null), queueAnalysis)));
+                    }
+
+                    // 4b. Gemini: el análisis se espera sin transacción; la escritura va a boundedElastic
+                    log.info("Contenido modificado, re-analizando con Gemini...");
+                    return sentimentAnalysisService.analyze(request.getEntryText())
+                            .filter(analysis -> analysis.getEmotion() != null)
+                            .switchIfEmpty(Mono.error(() -> new ExternalServiceException(
+                                    "El análisis de sentimientos por Gemini ha fallado o la respuesta es nula.")))
+                            .publishOn(Schedulers.boundedElastic())
+                            .map(analysis -> transactionTemplate.execute(status ->
+                                    applyUpdate(userId, entryId, request, analysis, false)));
+                });
+    }
+
+    private DiaryEntry findOwnedEntry(Long userId, Long entryId) {
+        DiaryEntry entry = diaryEntryRepository.findById(entryId)
                 .orElseThrow(() -> {
                     log.warn("❌ Entrada {} no encontrada", entryId);
                     return new IllegalArgumentException("Entrada de diario no encontrada.");
                 });
-
-        // 2. Verificar que la entrada pertenece al usuario
-        if (!existingEntry.getUserId().equals(userId)) {
+        if (!entry.getUserId().equals(userId)) {
             log.warn("❌ Usuario {} intentó actualizar entrada {} que no le pertenece", userId, entryId);
             throw new IllegalStateException("No tienes permiso para editar esta entrada.");
         }
+        return entry;
+    }
 
-        // 3. Validación de datos de entrada
-        if (request.getEntryText() == null || request.getEntryText().trim().isEmpty()) {
-            throw new IllegalArgumentException("El contenido del diario no puede estar vacío.");
-        }
-
-        // 4. Determinar si el contenido cambió significativamente (para re-analizar con IA)
-        boolean contentChanged = !existingEntry.getContent().equals(request.getEntryText());
+    /**
+     * Aplica la actualización con el análisis ya calculado (null si el contenido no cambió o si queueAnalysis).
+     * Vuelve a leer la entrada porque pudo borrarse mientras se analizaba. Debe llamarse dentro de una transacción.
+     */
+    private DiaryEntryResponse applyUpdate(Long userId, Long entryId, DiaryEntryRequest request,
+                                           GeminiAnalysisResponse analysisResponse, boolean queueAnalysis) {
+        DiaryEntry existingEntry = findOwnedEntry(userId, entryId);
 
         try {
-            // 5. Si el contenido cambió, volver a analizar con Gemini
-            if (contentChanged) {
-                log.info("Contenido modificado, re-analizando con Gemini...");
-                GeminiAnalysisResponse analysisResponse = geminiService.analyzeSentiment(request.getEntryText())
-                        .block();
-
-                if (analysisResponse == null || analysisResponse.getEmotion() == null) {
-                    throw new ExternalServiceException("El análisis de sentimientos por Gemini ha fallado o la respuesta es nula.");
-                }
-
-                // Actualizar campos de IA
-                existingEntry.setAiEmotion(analysisResponse.getEmotion());
+            // 5. Campos de IA: análisis en segundo plano o resultado recién calculado
+            if (queueAnalysis) {
+                log.info("Contenido modificado, análisis de IA encolado en segundo plano");
+                existingEntry.setAnalysisStatus(AnalysisStatus.PENDING);
+                existingEntry.setAnalysisAttempts(0);
+                eventPublisher.publishEvent(new AnalysisRequestedEvent(existingEntry.getId()));
+            } else if (analysisResponse != null) {
+                emotionDictionary.applyTo(existingEntry, analysisResponse.getEmotion());
                 existingEntry.setAiIntensity(analysisResponse.getIntensity());
                 existingEntry.setAiKeywords(analysisResponse.getKeywords());
                 existingEntry.setAiSummary(analysisResponse.getSummary());
+                existingEntry.setAnalysisStatus(analysisResponse.isFallback() ? AnalysisStatus.FALLBACK : AnalysisStatus.DONE);
+                existingEntry.setAnalysisAttempts(0);
             }
 
             // 6. Actualizar campos del usuario
+            String previousWorry = existingEntry.getMainWorry();
             existingEntry.setContent(request.getEntryText());
             existingEntry.setUserStressLevel(request.getStressLevel());
             existingEntry.setUserMoodRating(request.getMoodRating());
             existingEntry.setUserSleepHours(request.getSleepHours());
             existingEntry.setMainWorry(request.getMainWorry());
 
-            // 7. Guardar la entrada actualizada
-            DiaryEntry updatedEntry = diaryEntryRepository.save(existingEntry);
+            // 7. Guardar la entrada actualizada y recalcular el agregado de su día
+            DiaryEntry updatedEntry = diaryEntryRepository.saveAndFlush(existingEntry);
+            dailyStatsRollupService.refreshDayOf(userId, updatedEntry.getCreatedAt());
+            worryCounterService.onWorryChanged(userId, previousWorry, updatedEntry.getMainWorry());
+            eventPublisher.publishEvent(new DiaryEntryChangedEvent(userId, entryId));
 
             // 8. Convertir a DTO y retornar
             DiaryEntryResponse response = mapper.toResponseDto(updatedEntry);
@@ -0,0 +1,147 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.DiaryImportRecord;
+import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.model.ExportFormat;
+import com.emocional.diary.repository.DiaryEntryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Exportación del diario de un usuario en NDJSON o CSV.
+ * Las entradas se leen con un Stream de JPA (fetch size de 500 filas) y cada una se escribe y se desliga del
+ * contexto de persistencia antes de leer la siguiente, de modo que la memoria usada no depende del tamaño
+ * del historial y los primeros bytes salen en cuanto llega la primera fila.
+ */
+@Service
+@Slf4j
+public class DiaryExportService {
+
+    private static final String CSV_HEADER = "createdAt,entryText,moodRating,stressLevel,sleepHours,mainWorry,"
+            + "detectedEmotion,emotionalIntensity,aiSummary,keyWords";
+
+    private final DiaryEntryRepository diaryEntryRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter recordWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    public DiaryExportService(DiaryEntryRepository diaryEntryRepository,
+                              EntityManager entityManager,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.diaryEntryRepository = diaryEntryRepository;
+        this.entityManager = entityManager;
+        this.recordWriter = objectMapper.writerFor(DiaryImportRecord.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Escribe todas las entradas del usuario, de la más antigua a la más reciente.
+     * @param userId El ID del usuario autenticado.
+     * @param format NDJSON (reimportable con POST /api/v1/diary/import) o CSV.
+     * @param out Destino; no se cierra.
+     * @return Número de entradas exportadas.
+     * @throws IOException Si falla la escritura (p. ej. el cliente cerró la conexión).
+     */
+    public long export(Long userId, ExportFormat format, OutputStream out) throws IOException {
+        long startedAt = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+
+        Long exported;
+        try {
+            exported = transactionTemplate.execute(status -> {
+                long count = 0;
+                try (Stream<DiaryEntry> entries = diaryEntryRepository.streamAllByUserId(userId)) {
+                    for (DiaryEntry entry : (Iterable<DiaryEntry>) entries::iterator) {
+                        writeEntry(writer, format, toRecord(entry));
+                        entityManager.detach(entry);
+                        // La primera fila se envía sin esperar a llenar el buffer
+                        if (++count == 1) {
+                            writer.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+
+        log.info("📤 Exportación {} para usuario {}: {} entradas en {} ms",
+                format, userId, exported, (System.nanoTime() - startedAt) / 1_000_000);
+        return exported == null ? 0 : exported;
+    }
+
+    private void writeEntry(Writer writer, ExportFormat format, DiaryImportRecord record) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writer.write(recordWriter.writeValueAsString(record));
+            writer.write('\n');
+            return;
+        }
+        writer.write(String.join(",",
+                Objects.toString(record.getCreatedAt(), ""),
+                csvText(record.getEntryText()),
+                Objects.toString(record.getMoodRating(), ""),
+                Objects.toString(record.getStressLevel(), ""),
+                Objects.toString(record.getSleepHours(), ""),
+                csvText(record.getMainWorry()),
+                csvText(record.getDetectedEmotion()),
+                Objects.toString(record.getEmotionalIntensity(), ""),
+                csvText(record.getAiSummary()),
+                csvText(record.getKeyWords() == null ? null : String.join(";", record.getKeyWords()))));
+        writer.write("\r\n");
+    }
+
+    private static DiaryImportRecord toRecord(DiaryEntry entry) {
+        return DiaryImportRecord.builder()
+                .entryText(entry.getContent())
+                .createdAt(entry.getCreatedAt())
+                .moodRating(entry.getUserMoodRating())
+                .stressLevel(entry.getUserStressLevel())
+                .sleepHours(entry.getUserSleepHours())
+                .mainWorry(entry.getMainWorry())
+                .detectedEmotion(entry.getAiEmotion())
+                .emotionalIntensity(entry.getAiIntensity())
+                .aiSummary(entry.getAiSummary())
+                .keyWords(entry.getAiKeywords())
+                .build();
+    }
+
+    /**
+     * Campo de texto CSV: entre comillas si hace falta, y con un apóstrofo delante si empieza como una
+     * fórmula de hoja de cálculo (=, +, -, @), para que no se ejecute al abrir el fichero.
+     */
+    static String csvText(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String text = "=+-@\t\r".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,197 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.DiaryImportRecord;
+import com.emocional.diary.dto.ImportResultResponse;
+import com.emocional.diary.event.DiaryEntryChangedEvent;
+import com.emocional.diary.model.AnalysisStatus;
+import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.model.ImportAnalysisMode;
+import com.emocional.diary.repository.DiaryEntryBulkInsert;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de entradas de diario desde NDJSON (un objeto DiaryImportRecord por línea).
+ * El cuerpo se lee en streaming y se inserta por lotes de diary.import.batch-size entradas, cada lote en su
+ * propia transacción junto con la actualización de user_daily_stats y user_worry_count; la memoria usada
+ * depende del tamaño del lote, no del fichero. Las líneas inválidas se cuentan y se omiten.
+ */
+@Service
+@Slf4j
+public class DiaryImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final DiaryEntryBulkInsert bulkInsert;
+    private final DailyStatsRollupService dailyStatsRollupService;
+    private final WorryCounterService worryCounterService;
+    private final EmotionDictionary emotionDictionary;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final ObjectReader recordReader;
+    private final TransactionTemplate transactionTemplate;
+    private final ZoneId diaryZoneId;
+
+    @Value("${diary.import.batch-size:1000}")
+    private int batchSize;
+
+    public DiaryImportService(DiaryEntryBulkInsert bulkInsert,
+                              DailyStatsRollupService dailyStatsRollupService,
+                              WorryCounterService worryCounterService,
+                              EmotionDictionary emotionDictionary,
+                              ApplicationEventPublisher eventPublisher,
+                              Validator validator,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              ZoneId diaryZoneId) {
+        this.bulkInsert = bulkInsert;
+        this.dailyStatsRollupService = dailyStatsRollupService;
+        this.worryCounterService = worryCounterService;
+        this.emotionDictionary = emotionDictionary;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.recordReader = objectMapper.readerFor(DiaryImportRecord.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.diaryZoneId = diaryZoneId;
+    }
+
+    /**
+     * Importa las entradas del flujo NDJSON para el usuario.
+     * @param userId El ID del usuario autenticado.
+     * @param ndjson Cuerpo de la petición (UTF-8); las líneas vacías se ignoran.
+     * @param analysisMode Si el análisis de IA se omite o se difiere a la recuperación periódica.
+     * @return Totales de entradas importadas, duplicadas e inválidas.
+     * @throws IOException Si falla la lectura del cuerpo.
+     */
+    public ImportResultResponse importNdjson(Long userId, InputStream ndjson, ImportAnalysisMode analysisMode) throws IOException {
+        long startedAt = System.nanoTime();
+        long imported = 0;
+        long duplicates = 0;
+        long invalid = 0;
+        List<String> errors = new ArrayList<>();
+        List<DiaryEntry> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String error = null;
+                try {
+                    DiaryImportRecord record = recordReader.readValue(line);
+                    Set<ConstraintViolation<DiaryImportRecord>> violations = validator.validate(record);
+                    if (violations.isEmpty()) {
+                        batch.add(toEntity(userId, record, analysisMode));
+                    } else {
+                        error = violations.stream().map(ConstraintViolation::getMessage).sorted()
+                                .collect(Collectors.joining(" "));
+                    }
+                } catch (JsonProcessingException e) {
+                    error = "JSON inválido (" + e.getOriginalMessage() + ")";
+                }
+                if (error != null) {
+                    invalid++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("línea " + lineNumber + ": " + error);
+                    }
+                }
+
+                if (batch.size() >= batchSize) {
+                    int inserted = insertBatch(userId, batch);
+                    imported += inserted;
+                    duplicates += batch.size() - inserted;
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            int inserted = insertBatch(userId, batch);
+            imported += inserted;
+            duplicates += batch.size() - inserted;
+        }
+
+        if (imported > 0) {
+            // Invalida los datos derivados del usuario (recomendaciones en cache)
+            eventPublisher.publishEvent(new DiaryEntryChangedEvent(userId, null));
+        }
+        log.info("📦 Importación para usuario {}: {} importadas, {} duplicadas, {} inválidas en {} ms (análisis {})",
+                userId, imported, duplicates, invalid, (System.nanoTime() - startedAt) / 1_000_000, analysisMode);
+
+        return ImportResultResponse.builder()
+                .imported(imported)
+                .duplicates(duplicates)
+                .invalid(invalid)
+                .errors(errors)
+                .build();
+    }
+
+    /**
+     * Inserta un lote y actualiza los agregados del usuario en la misma transacción.
+     * @return Número de entradas insertadas (el resto ocupaba un día que ya tenía entrada).
+     */
+    private int insertBatch(Long userId, List<DiaryEntry> batch) {
+        Integer inserted = transactionTemplate.execute(status -> {
+            List<DiaryEntryBulkInsert.InsertedEntry> rows = bulkInsert.insert(batch);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            Comparator<DiaryEntryBulkInsert.InsertedEntry> byCreatedAt =
+                    Comparator.comparing(DiaryEntryBulkInsert.InsertedEntry::createdAt);
+            dailyStatsRollupService.refreshDaysBetween(userId,
+                    rows.stream().min(byCreatedAt).orElseThrow().createdAt(),
+                    rows.stream().max(byCreatedAt).orElseThrow().createdAt());
+            worryCounterService.onEntriesAdded(userId,
+                    rows.stream().map(DiaryEntryBulkInsert.InsertedEntry::mainWorry).toList());
+            return rows.size();
+        });
+        return inserted != null ? inserted : 0;
+    }
+
+    private DiaryEntry toEntity(Long userId, DiaryImportRecord record, ImportAnalysisMode analysisMode) {
+        DiaryEntry.DiaryEntryBuilder entry = DiaryEntry.builder()
+                .userId(userId)
+                .content(record.getEntryText())
+                .userStressLevel(record.getStressLevel())
+                .userMoodRating(record.getMoodRating())
+                .userSleepHours(record.getSleepHours())
+                .mainWorry(record.getMainWorry())
+                .createdAt(record.getCreatedAt())
+                .entryDate(record.getCreatedAt().atZone(diaryZoneId).toLocalDate());
+
+        if (analysisMode == ImportAnalysisMode.DEFER) {
+            return entry.analysisStatus(AnalysisStatus.PENDING).build();
+        }
+        DiaryEntry analyzed = entry
+                .aiIntensity(record.getEmotionalIntensity())
+                .aiSummary(record.getAiSummary())
+                .aiKeywords(record.getKeyWords())
+                .analysisStatus(AnalysisStatus.DONE)
+                .build();
+        emotionDictionary.applyTo(analyzed, record.getDetectedEmotion());
+        return analyzed;
+    }
+}
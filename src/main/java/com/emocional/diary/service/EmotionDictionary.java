@@ -0,0 +1,86 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.model.Emotion;
+import com.emocional.diary.repository.EmotionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Normaliza la emoción libre que devuelve la IA a una categoría del diccionario (tabla emotion).
+ * El diccionario se carga una vez al arrancar y se consulta en memoria: la emoción se pasa a
+ * minúsculas, sin tildes ni signos, y se busca por código, nombre o alias.
+ * Las emociones que no están en el diccionario se guardan tal cual, con emotion_id nulo.
+ */
+@Component
+@Slf4j
+public class EmotionDictionary {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Emotion> byFoldedName;
+
+    public EmotionDictionary(EmotionRepository emotionRepository) {
+        this(emotionRepository.findAll());
+    }
+
+    EmotionDictionary(List<Emotion> emotions) {
+        Map<String, Emotion> index = new HashMap<>();
+        for (Emotion emotion : emotions) {
+            index.put(fold(emotion.getCode()), emotion);
+            index.put(fold(emotion.getLabel()), emotion);
+            if (emotion.getAliases() != null) {
+                emotion.getAliases().forEach(alias -> index.putIfAbsent(fold(alias), emotion));
+            }
+        }
+        this.byFoldedName = Map.copyOf(index);
+        log.info("Diccionario de emociones cargado: {} categorías, {} nombres", emotions.size(), byFoldedName.size());
+    }
+
+    /**
+     * @param rawEmotion Emoción tal como la devolvió la IA.
+     * @return La categoría del diccionario, o vacío si la emoción es nula o desconocida.
+     */
+    public Optional<Emotion> resolve(String rawEmotion) {
+        if (rawEmotion == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byFoldedName.get(fold(rawEmotion)));
+    }
+
+    /**
+     * Asigna la emoción a la entrada: el nombre canónico y su id si está en el diccionario;
+     * si no, el texto recibido (sin espacios sobrantes) y emotion_id nulo.
+     * @param entry Entrada a actualizar.
+     * @param rawEmotion Emoción tal como la devolvió la IA.
+     */
+    public void applyTo(DiaryEntry entry, String rawEmotion) {
+        Optional<Emotion> emotion = resolve(rawEmotion);
+        entry.setAiEmotion(emotion.map(Emotion::getLabel).orElseGet(() -> trimToNull(rawEmotion)));
+        entry.setEmotionId(emotion.map(Emotion::getId).orElse(null));
+    }
+
+    /**
+     * Minúsculas, sin tildes y con los signos y espacios reducidos a un único espacio.
+     */
+    static String fold(String value) {
+        String decomposed = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return NON_WORD.matcher(decomposed.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim();
+    }
+}
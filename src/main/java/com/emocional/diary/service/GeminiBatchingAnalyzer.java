@@ -0,0 +1,146 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Etapa opcional de micro-batching delante de GeminiService.
+ * Agrupa los análisis pendientes durante una ventana corta (o hasta N elementos), los envía
+ * en una sola llamada a Gemini y reparte cada resultado al Mono que lo espera.
+ * Si el lote falla o un resultado no se puede interpretar, esos textos se analizan por separado.
+ */
+@Component
+@Slf4j
+public class GeminiBatchingAnalyzer {
+
+    private final GeminiService geminiService;
+    // Se sustituye (junto con la suscripción) si el pipeline termina con error; ver subscribe()
+    private volatile Sinks.Many<PendingAnalysis> queue;
+    private volatile Disposable subscription;
+    private volatile boolean stopped;
+
+    @Value("${google.ai.gemini.batch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${google.ai.gemini.batch.max-size:8}")
+    private int maxBatchSize;
+
+    @Value("${google.ai.gemini.batch.window-ms:200}")
+    private long windowMs;
+
+    @Value("${google.ai.gemini.batch.max-concurrent-batches:4}")
+    private int maxConcurrentBatches;
+
+    // Tiempo máximo que un llamador espera su resultado, aunque el lote se haya perdido
+    @Value("${google.ai.gemini.batch.result-timeout-ms:60000}")
+    private long resultTimeoutMs;
+
+    public GeminiBatchingAnalyzer(GeminiService geminiService) {
+        this.geminiService = geminiService;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        subscribe();
+        log.info("Micro-batching de análisis activo: hasta {} textos cada {} ms", maxBatchSize, windowMs);
+    }
+
+    /**
+     * Crea la cola y su pipeline. bufferTimeout con backpressure justa solo emite un lote cuando flatMap
+     * puede aceptarlo (máximo maxConcurrentBatches en curso); el resto espera en la cola del sink.
+     * Si el pipeline termina con error se vuelve a crear, para que los envíos siguientes no fallen
+     * hasta reiniciar; los textos que estaban en el lote perdido terminan por el timeout de submit().
+     */
+    private synchronized void subscribe() {
+        if (stopped) {
+            return;
+        }
+        Sinks.Many<PendingAnalysis> sink = Sinks.many().unicast().onBackpressureBuffer();
+        queue = sink;
+        subscription = sink.asFlux()
+                .bufferTimeout(maxBatchSize, Duration.ofMillis(windowMs), true)
+                .flatMap(this::dispatch, maxConcurrentBatches)
+                .subscribe(null, error -> {
+                    log.error("❌ El pipeline de micro-batching terminó con error, se reinicia: {}", error.getMessage());
+                    subscribe();
+                });
+    }
+
+    @PreDestroy
+    synchronized void stop() {
+        stopped = true;
+        if (queue != null) {
+            queue.tryEmitComplete();
+        }
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Encola un texto para el próximo lote.
+     * @param content Texto del diario.
+     * @return Mono que se completa cuando el lote que contiene el texto es procesado, o falla con
+     *         TimeoutException pasados google.ai.gemini.batch.result-timeout-ms.
+     */
+    public Mono<GeminiAnalysisResponse> submit(String content) {
+        return Mono.defer(() -> {
+            Sinks.One<GeminiAnalysisResponse> result = Sinks.one();
+            // Varios hilos pueden encolar a la vez: se reintenta mientras el sink esté ocupado
+            queue.emitNext(new PendingAnalysis(content, result), Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+            return result.asMono().timeout(Duration.ofMillis(resultTimeoutMs));
+        });
+    }
+
+    private Mono<Void> dispatch(List<PendingAnalysis> batch) {
+        if (batch.size() == 1) {
+            return analyzeSingle(batch.get(0));
+        }
+
+        List<String> contents = batch.stream().map(PendingAnalysis::content).toList();
+        return geminiService.analyzeSentimentBatch(contents)
+                .flatMap(results -> Flux.range(0, batch.size())
+                        .flatMap(i -> {
+                            GeminiAnalysisResponse analysis = results.get(i);
+                            if (analysis == null) {
+                                return analyzeSingle(batch.get(i));
+                            }
+                            batch.get(i).result().tryEmitValue(analysis);
+                            return Mono.<Void>empty();
+                        })
+                        .then())
+                .onErrorResume(error -> {
+                    log.warn("⚠️ Falló el lote de {} análisis, reintentando individualmente: {}", batch.size(), error.getMessage());
+                    return Flux.fromIterable(batch).flatMap(this::analyzeSingle).then();
+                });
+    }
+
+    private Mono<Void> analyzeSingle(PendingAnalysis pending) {
+        return geminiService.analyzeSentiment(pending.content())
+                .doOnNext(analysis -> pending.result().tryEmitValue(analysis))
+                .doOnError(error -> pending.result().tryEmitError(error))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private record PendingAnalysis(String content, Sinks.One<GeminiAnalysisResponse> result) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.emocional.diary.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Mide la latencia de cada operación contra Gemini y, si está activo, ejecuta peticiones "hedged":
+ * cuando la primera llamada supera el percentil configurado de latencias recientes, lanza una
+ * segunda llamada idéntica y se queda con la primera respuesta que llegue (la otra se cancela).
+ * Así se acota la latencia de cola de analyzeSentiment y generateRecommendation.
+ * Solo se compite por el éxito: un error de la llamada principal (400, 429, respuesta ilegible...) se
+ * propaga en cuanto llega y cancela el respaldo pendiente, para no convertir el hedge en un reintento.
+ */
+@Component
+@Slf4j
+public class GeminiRequestHedger {
+
+    private static final int WINDOW_SIZE = 256;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    @Value("${google.ai.gemini.hedge.enabled:false}")
+    private boolean enabled;
+
+    @Value("${google.ai.gemini.hedge.percentile:0.95}")
+    private double percentile;
+
+    @Value("${google.ai.gemini.hedge.min-samples:20}")
+    private int minSamples;
+
+    @Value("${google.ai.gemini.hedge.min-delay-ms:500}")
+    private long minDelayMs;
+
+    public GeminiRequestHedger(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Ejecuta la llamada registrando su latencia y, si procede, con una segunda llamada de respaldo.
+     * @param operation Nombre de la operación (analysis, batch, recommendation); etiqueta de métricas.
+     * @param call Proveedor de la llamada; se invoca una vez por intento.
+     */
+    public <T> Mono<T> execute(String operation, Supplier<Mono<T>> call) {
+        LatencyWindow window = windows.computeIfAbsent(operation, LatencyWindow::new);
+        Mono<T> primary = timed(window, call);
+
+        Duration hedgeDelay = enabled ? window.hedgeDelay() : null;
+        if (hedgeDelay == null) {
+            return primary;
+        }
+
+        Mono<T> hedge = Mono.delay(hedgeDelay)
+                .then(Mono.defer(() -> {
+                    window.hedges.increment();
+                    log.debug("Latencia de Gemini ({}) por encima de {} ms, lanzando petición de respaldo", operation, hedgeDelay.toMillis());
+                    return timed(window, call);
+                }));
+        // El error del respaldo no cuenta: la llamada principal sigue decidiendo el resultado
+        Mono<T> hedgeOnSuccess = hedge.onErrorResume(error -> {
+            log.debug("La petición de respaldo a Gemini ({}) falló: {}", operation, error.toString());
+            return Mono.never();
+        });
+        return Mono.firstWithSignal(primary, hedgeOnSuccess);
+    }
+
+    private <T> Mono<T> timed(LatencyWindow window, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.get()
+                    .doOnSuccess(result -> window.record(System.nanoTime() - start))
+                    .doOnError(error -> window.errorTimer.record(Duration.ofNanos(System.nanoTime() - start)));
+        });
+    }
+
+    /**
+     * Ventana circular con las últimas latencias exitosas de una operación.
+     */
+    private final class LatencyWindow {
+
+        private final AtomicLongArray samples = new AtomicLongArray(WINDOW_SIZE);
+        private final AtomicLong count = new AtomicLong();
+        private final Counter hedges;
+        private final Timer successTimer;
+        private final Timer errorTimer;
+        private volatile Duration cachedDelay;
+
+        private LatencyWindow(String operation) {
+            this.hedges = Counter.builder("gemini.requests.hedged")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            this.successTimer = timer(operation, "success");
+            this.errorTimer = timer(operation, "error");
+        }
+
+        private Timer timer(String operation, String outcome) {
+            return Timer.builder("gemini.requests")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+        }
+
+        private void record(long nanos) {
+            successTimer.record(Duration.ofNanos(nanos));
+            long n = count.getAndIncrement();
+            samples.set((int) (n % WINDOW_SIZE), nanos);
+            // El percentil se recalcula cada 16 muestras para no ordenar la ventana en cada llamada
+            if (n % 16 == 0) {
+                cachedDelay = null;
+            }
+        }
+
+        private Duration hedgeDelay() {
+            int n = (int) Math.min(count.get(), WINDOW_SIZE);
+            if (n < minSamples) {
+                return null;
+            }
+            Duration delay = cachedDelay;
+            if (delay == null) {
+                long[] copy = new long[n];
+                for (int i = 0; i < n; i++) {
+                    copy[i] = samples.get(i);
+                }
+                Arrays.sort(copy);
+                long nanos = copy[Math.min(n - 1, (int) Math.ceil(percentile * n) - 1)];
+                delay = Duration.ofNanos(Math.max(nanos, Duration.ofMillis(minDelayMs).toNanos()));
+                cachedDelay = delay;
+            }
+            return delay;
+        }
+    }
+}
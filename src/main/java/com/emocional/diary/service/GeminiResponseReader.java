@@ -0,0 +1,164 @@
+package com.emocional.diary.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+
+/**
+ * Lee la respuesta de generateContent directamente de los buffers de red con el parser no
+ * bloqueante de Jackson, a medida que llegan, sin materializar el cuerpo completo ni el árbol de
+ * GeminiResponse. Solo conserva lo que se usa: el texto de candidates[0].content.parts[*].text,
+ * el finishReason del primer candidato y el blockReason de promptFeedback.
+ * Cada buffer se libera en cuanto se ha consumido. No es thread-safe: una instancia por respuesta.
+ */
+public class GeminiResponseReader {
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private StringBuilder text;
+    private boolean hasCandidates;
+    private boolean hasContent;
+    private String finishReason;
+    private String blockReason;
+
+    public GeminiResponseReader(JsonFactory jsonFactory) {
+        try {
+            this.parser = jsonFactory.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Consume un fragmento del cuerpo de la respuesta y lo libera.
+     */
+    public void feed(DataBuffer dataBuffer) {
+        try (DataBuffer.ByteBufferIterator buffers = dataBuffer.readableByteBuffers()) {
+            while (buffers.hasNext()) {
+                feeder.feedInput(buffers.next());
+                drain();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+    }
+
+    /**
+     * Cierra la entrada y devuelve el contenido extraído.
+     */
+    public Content finish() {
+        feeder.endOfInput();
+        try {
+            drain();
+            parser.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Content(text != null ? text.toString() : null, hasCandidates, hasContent, finishReason, blockReason);
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            JsonStreamContext context = parser.getParsingContext();
+            if (token == JsonToken.START_OBJECT && isFirstCandidate(context.getParent())
+                    && "content".equals(context.getParent().getCurrentName())) {
+                hasContent = true;
+            } else if (token == JsonToken.START_OBJECT && isFirstCandidate(context)) {
+                hasCandidates = true;
+            } else if (token == JsonToken.VALUE_STRING) {
+                readString(context);
+            }
+        }
+    }
+
+    private void readString(JsonStreamContext context) throws IOException {
+        String name = context.getCurrentName();
+        if ("text".equals(name) && isPartOfFirstCandidate(context)) {
+            if (text == null) {
+                text = new StringBuilder(parser.getTextLength());
+            }
+            text.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        } else if ("finishReason".equals(name) && isFirstCandidate(context)) {
+            finishReason = parser.getText();
+        } else if ("blockReason".equals(name) && context.getParent() != null
+                && "promptFeedback".equals(context.getParent().getCurrentName())
+                && context.getParent().getParent() != null && context.getParent().getParent().inRoot()) {
+            blockReason = parser.getText();
+        }
+    }
+
+    // Objeto /candidates/0
+    private static boolean isFirstCandidate(JsonStreamContext context) {
+        if (context == null || !context.inObject()) {
+            return false;
+        }
+        JsonStreamContext array = context.getParent();
+        return array != null && array.inArray() && array.getCurrentIndex() == 0
+                && array.getParent() != null && array.getParent().inObject()
+                && "candidates".equals(array.getParent().getCurrentName())
+                && array.getParent().getParent() != null && array.getParent().getParent().inRoot();
+    }
+
+    // Objeto /candidates/0/content/parts/N
+    private static boolean isPartOfFirstCandidate(JsonStreamContext context) {
+        JsonStreamContext parts = context.getParent();
+        if (!context.inObject() || parts == null || !parts.inArray()) {
+            return false;
+        }
+        JsonStreamContext content = parts.getParent();
+        return content != null && content.inObject() && "parts".equals(content.getCurrentName())
+                && "content".equals(content.getParent() != null ? content.getParent().getCurrentName() : null)
+                && isFirstCandidate(content.getParent());
+    }
+
+    /**
+     * Texto del modelo y metadatos del primer candidato.
+     */
+    public record Content(String text, boolean hasCandidates, boolean hasContent, String finishReason, String blockReason) {
+
+        /**
+         * Devuelve un Reader posicionado en el primer '{' o '[' del texto, sin copiarlo.
+         * Así se ignoran las vallas de markdown (```json) que a veces añade el modelo; lo que haya
+         * tras el valor JSON raíz no se lee.
+         */
+        public Reader jsonReader() {
+            int start = jsonStart();
+            if (start < 0) {
+                return null;
+            }
+            StringReader reader = new StringReader(text);
+            try {
+                reader.skip(start);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return reader;
+        }
+
+        private int jsonStart() {
+            if (text == null) {
+                return -1;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '{' || c == '[') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package com.emocional.diary.service;
 
 import com.emocional.diary.dto.gemini.*;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,8 +30,15 @@ import java.util.Optional;
 @Slf4j
 public class GeminiService {
 
+    /**
+     * Versión del prompt de análisis. Debe incrementarse al modificar buildSystemPrompt()
+     * para que los resultados cacheados con el prompt anterior dejen de reutilizarse.
+     */
+    public static final String ANALYSIS_PROMPT_VERSION = "v1";
+
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final GeminiRequestHedger requestHedger;
 
     @Value("${google.ai.gemini.api-key}")
     private String apiKey;
@@ -28,37 +46,142 @@ public class GeminiService {
     @Value("${google.ai.gemini.url}")
     private String geminiUrl;
 
+    @Value("${google.ai.gemini.model:gemini-2.5-flash}")
+    private String model;
+
+    // Plazos máximos por operación (incluyen la posible petición de respaldo)
+    @Value("${google.ai.gemini.deadline.analysis-ms:15000}")
+    private long analysisDeadlineMs;
+
+    @Value("${google.ai.gemini.deadline.batch-ms:30000}")
+    private long batchDeadlineMs;
+
+    @Value("${google.ai.gemini.deadline.recommendation-ms:30000}")
+    private long recommendationDeadlineMs;
+
+    /**
+     * Identifica el prompt y el modelo con que se produce un análisis.
+     * Forma parte de la clave del cache de análisis.
+     */
+    public String getAnalysisVersion() {
+        return ANALYSIS_PROMPT_VERSION + ":" + model;
+    }
+
     public Mono<GeminiAnalysisResponse> analyzeSentiment(String diaryContent) {
         String prompt = buildSystemPrompt() + "\n\nTEXTO DEL DIARIO A ANALIZAR:\n" + diaryContent;
         log.info("Enviando análisis de sentimientos a Gemini...");
         GeminiRequest requestBody = createGeminiRequest(prompt);
 
-        return webClient.post()
-                .uri(uriBuilder -> uriBuilder.path("/v1/models/gemini-2.5-flash:generateContent").queryParam("key", apiKey).build())
-                .body(BodyInserters.fromValue(requestBody))
-                .retrieve()
-                .bodyToMono(GeminiResponse.class)
-                .flatMap(this::parseContentFromResponse)
+        return requestHedger.execute("analysis", () -> postGenerateContent(requestBody)
+                        .flatMap(this::parseContentFromResponse))
+                .timeout(Duration.ofMillis(analysisDeadlineMs))
                 .doOnSuccess(response -> log.info("✅ Análisis completado - Emoción: {}", response.getEmotion()))
                 .doOnError(error -> log.error("❌ Error en la llamada a Gemini para análisis: {}", error.getMessage()));
     }
 
+    /**
+     * Analiza varios textos de diario en una sola llamada a Gemini.
+     * El prompt del sistema se envía una sola vez y se pide un array JSON con un resultado por texto.
+     * La lista devuelta tiene el mismo tamaño y orden que la de entrada; las posiciones cuyo
+     * resultado falte o esté incompleto quedan en null para que el llamador las reintente por separado.
+     * @param diaryContents Textos a analizar.
+     * @return Mono con los resultados en el mismo orden que los textos.
+     */
+    public Mono<List<GeminiAnalysisResponse>> analyzeSentimentBatch(List<String> diaryContents) {
+        StringBuilder prompt = new StringBuilder(buildSystemPrompt()).append(buildBatchInstructions());
+        for (int i = 0; i < diaryContents.size(); i++) {
+            prompt.append("\n\nTEXTO ").append(i).append(":\n").append(diaryContents.get(i));
+        }
+        log.info("Enviando lote de {} análisis de sentimientos a Gemini...", diaryContents.size());
+        GeminiRequest requestBody = createGeminiRequest(prompt.toString(), Math.min(8192, 2048 * diaryContents.size()));
+
+        return requestHedger.execute("batch", () -> postGenerateContent(requestBody)
+                        .flatMap(response -> parseBatchFromResponse(response, diaryContents.size())))
+                .timeout(Duration.ofMillis(batchDeadlineMs))
+                .doOnSuccess(results -> log.info("✅ Lote de {} análisis completado", diaryContents.size()))
+                .doOnError(error -> log.error("❌ Error en la llamada a Gemini para análisis por lotes: {}", error.getMessage()));
+    }
+
     public Mono<GeminiRecommendationResponse> generateRecommendation(String promptText) {
         String prompt = buildRecommendationPrompt(promptText);
         log.info("Enviando solicitud de recomendación a Gemini...");
         GeminiRequest requestBody = createGeminiRequest(prompt);
 
+        return requestHedger.execute("recommendation", () -> postGenerateContent(requestBody)
+                        .flatMap(this::parseRecommendationFromResponse))
+                .timeout(Duration.ofMillis(recommendationDeadlineMs))
+                .doOnSuccess(response -> log.info("✅ Recomendación generada con éxito."))
+                .doOnError(error -> log.error("❌ Error en la llamada a Gemini para recomendación: {}", error.getMessage()));
+    }
+
+    /**
+     * Variante en streaming de generateRecommendation: llama a streamGenerateContent (SSE) y emite
+     * cada recomendación en cuanto su objeto JSON queda completo, sin esperar al resto.
+     * @param promptText Contexto y prompt del usuario.
+     * @return Flux con las recomendaciones a medida que llegan.
+     */
+    public Flux<GeminiRecommendationResponse.Recommendation> streamRecommendations(String promptText) {
+        String prompt = buildRecommendationPrompt(promptText);
+        log.info("Enviando solicitud de recomendación en streaming a Gemini...");
+        GeminiRequest requestBody = createGeminiRequest(prompt);
+
+        return Flux.defer(() -> {
+            RecommendationStreamParser parser = new RecommendationStreamParser(objectMapper);
+            return webClient.post()
+                    .uri(uriBuilder -> uriBuilder.path("/v1/models/" + model + ":streamGenerateContent")
+                            .queryParam("alt", "sse")
+                            .queryParam("key", apiKey)
+                            .build())
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .body(BodyInserters.fromValue(requestBody))
+                    .retrieve()
+                    .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<GeminiResponse>>() {})
+                    .mapNotNull(ServerSentEvent::data)
+                    .map(this::extractChunkText)
+                    .concatMapIterable(parser::feed);
+        })
+                // Plazo entre recomendaciones: detecta un stream estancado
+                .timeout(Duration.ofMillis(recommendationDeadlineMs))
+                .doOnComplete(() -> log.info("✅ Stream de recomendaciones completado."))
+                .doOnError(error -> log.error("❌ Error en el stream de recomendaciones de Gemini: {}", error.getMessage()));
+    }
+
+    private String extractChunkText(GeminiResponse chunk) {
+        if (chunk.getCandidates() == null || chunk.getCandidates().isEmpty()) {
+            return "";
+        }
+        GeminiResponse.Content content = chunk.getCandidates().get(0).getContent();
+        if (content == null || content.getParts() == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (GeminiResponse.Part part : content.getParts()) {
+            if (part.getText() != null) {
+                text.append(part.getText());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Envía la petición y procesa el cuerpo buffer a buffer según llega de la red, quedándose
+     * solo con el texto del primer candidato (ver GeminiResponseReader).
+     */
+    private Mono<GeminiResponseReader.Content> postGenerateContent(GeminiRequest requestBody) {
         return webClient.post()
-                .uri(uriBuilder -> uriBuilder.path("/v1/models/gemini-2.5-flash:generateContent").queryParam("key", apiKey).build())
+                .uri(uriBuilder -> uriBuilder.path("/v1/models/" + model + ":generateContent").queryParam("key", apiKey).build())
                 .body(BodyInserters.fromValue(requestBody))
                 .retrieve()
-                .bodyToMono(GeminiResponse.class)
-                .flatMap(this::parseRecommendationFromResponse)
-                .doOnSuccess(response -> log.info("✅ Recomendación generada con éxito."))
-                .doOnError(error -> log.error("❌ Error en la llamada a Gemini para recomendación: {}", error.getMessage()));
+                .bodyToFlux(DataBuffer.class)
+                .collect(() -> new GeminiResponseReader(objectMapper.getFactory()), GeminiResponseReader::feed)
+                .map(GeminiResponseReader::finish);
     }
 
     private GeminiRequest createGeminiRequest(String prompt) {
+        return createGeminiRequest(prompt, 2048);
+    }
+
+    private GeminiRequest createGeminiRequest(String prompt, int maxOutputTokens) {
         return GeminiRequest.builder()
                 .contents(List.of(
                         GeminiRequest.Content.builder()
@@ -67,7 +190,7 @@ public class GeminiService {
                 ))
                 .generationConfig(GeminiRequest.GenerationConfig.builder()
                         .temperature(0.5)
-                        .maxOutputTokens(2048)
+                        .maxOutputTokens(maxOutputTokens)
                         .topP(0.8)
                         .topK(40)
                         .build())
@@ -120,6 +243,19 @@ public class GeminiService {
         """;
     }
 
+    private String buildBatchInstructions() {
+        return """
+        
+        MODO POR LOTES: a continuación recibirás varios textos numerados (TEXTO 0, TEXTO 1, ...).
+        Aplica las reglas anteriores a CADA texto de forma independiente. En lugar de un único objeto,
+        DEVUELVE SOLO un array JSON con un objeto por texto, en el mismo orden, añadiendo a cada objeto
+        el campo "index" con el número del texto:
+        [
+          { "index": 0, "emotion": "...", "intensity": 5, "summary": "...", "keywords": ["...", "..."] }
+        ]
+        """;
+    }
+
     private String buildRecommendationPrompt(String userContext) {
         return "Eres un experto en bienestar mental. Genera 3 recomendaciones personalizadas. " +
                "Cada una debe tener: title, description (máx 30 palabras), category ('Bienestar', 'Actividad Física', etc.), y priority ('high', 'medium', 'low'). " +
@@ -128,52 +264,40 @@ public class GeminiService {
                "Contexto del usuario: " + userContext;
     }
 
-    private Optional<String> extractCleanJson(GeminiResponse apiResponse) {
-        if (apiResponse == null) {
-            log.error("❌ La respuesta de la API de Gemini es completamente nula.");
+    private Optional<Reader> extractJson(GeminiResponseReader.Content apiResponse) {
+        if (!apiResponse.hasCandidates()) {
+            log.error("❌ Gemini no devolvió 'candidates' en la respuesta. Finish Reason: {}",
+                Optional.ofNullable(apiResponse.blockReason()).orElse("N/A"));
             return Optional.empty();
         }
 
-        if (apiResponse.getCandidates() == null || apiResponse.getCandidates().isEmpty()) {
-            log.error("❌ Gemini no devolvió 'candidates' en la respuesta. Finish Reason: {}", 
-                Optional.ofNullable(apiResponse.getPromptFeedback()).map(f -> f.getBlockReason()).orElse("N/A"));
+        if (!apiResponse.hasContent()) {
+            log.error("❌ El primer candidato de la respuesta no tiene 'content'. Finish Reason: {}", apiResponse.finishReason());
             return Optional.empty();
         }
 
-        GeminiResponse.Candidate firstCandidate = apiResponse.getCandidates().get(0);
-        if (firstCandidate.getContent() == null) {
-            log.error("❌ El primer candidato de la respuesta no tiene 'content'. Finish Reason: {}", firstCandidate.getFinishReason());
-            return Optional.empty();
-        }
-
-        if (firstCandidate.getContent().getParts() == null || firstCandidate.getContent().getParts().isEmpty()) {
-            log.error("❌ El contenido del candidato no tiene 'parts'. Finish Reason: {}", firstCandidate.getFinishReason());
-            return Optional.empty();
-        }
-
-        String rawText = firstCandidate.getContent().getParts().get(0).getText();
+        String rawText = apiResponse.text();
         if (rawText == null || rawText.isBlank()) {
-            log.error("❌ El texto dentro de 'parts' está vacío o es nulo.");
+            log.error("❌ El texto dentro de 'parts' está vacío o es nulo. Finish Reason: {}", apiResponse.finishReason());
             return Optional.empty();
         }
 
         log.debug("Respuesta cruda de Gemini: {}", rawText);
-        String cleanJson = rawText.trim().replace("```json", "").replace("```", "").trim();
-        log.debug("JSON limpio: {}", cleanJson);
-        return Optional.of(cleanJson);
+        // Se lee desde el primer '{' o '[' sobre el mismo String: las vallas ```json no requieren copias
+        return Optional.ofNullable(apiResponse.jsonReader());
     }
 
-    private Mono<GeminiAnalysisResponse> parseContentFromResponse(GeminiResponse apiResponse) {
-        return extractCleanJson(apiResponse)
-                .map(cleanJson -> {
+    private Mono<GeminiAnalysisResponse> parseContentFromResponse(GeminiResponseReader.Content apiResponse) {
+        return extractJson(apiResponse)
+                .map(json -> {
                     try {
-                        GeminiAnalysisResponse parsed = objectMapper.readValue(cleanJson, GeminiAnalysisResponse.class);
+                        GeminiAnalysisResponse parsed = objectMapper.readValue(json, GeminiAnalysisResponse.class);
                         if (parsed.getEmotion() == null || parsed.getIntensity() == null) {
-                            log.error("❌ JSON de análisis incompleto: {}", cleanJson);
+                            log.error("❌ JSON de análisis incompleto: {}", apiResponse.text());
                             return Mono.<GeminiAnalysisResponse>error(new RuntimeException("Respuesta de análisis de Gemini incompleta"));
                         }
                         return Mono.just(parsed);
-                    } catch (JsonProcessingException e) {
+                    } catch (IOException e) {
                         log.error("❌ Error parseando JSON de análisis: {}", e.getMessage());
                         return Mono.<GeminiAnalysisResponse>error(new RuntimeException("Error procesando respuesta de análisis de Gemini", e));
                     }
@@ -181,17 +305,47 @@ public class GeminiService {
                 .orElseGet(() -> Mono.error(new RuntimeException("No se pudo extraer contenido JSON válido de la respuesta de Gemini para análisis.")));
     }
 
-    private Mono<GeminiRecommendationResponse> parseRecommendationFromResponse(GeminiResponse apiResponse) {
-        return extractCleanJson(apiResponse)
-                .map(cleanJson -> {
+    private Mono<List<GeminiAnalysisResponse>> parseBatchFromResponse(GeminiResponseReader.Content apiResponse, int expectedSize) {
+        return extractJson(apiResponse)
+                .map(json -> {
+                    try {
+                        JsonNode root = objectMapper.readTree(json);
+                        if (!root.isArray()) {
+                            return Mono.<List<GeminiAnalysisResponse>>error(new RuntimeException("La respuesta por lotes de Gemini no es un array JSON"));
+                        }
+                        GeminiAnalysisResponse[] results = new GeminiAnalysisResponse[expectedSize];
+                        for (int position = 0; position < root.size(); position++) {
+                            JsonNode node = root.get(position);
+                            int index = node.path("index").asInt(position);
+                            if (index < 0 || index >= expectedSize || !node.isObject()) {
+                                continue;
+                            }
+                            ((ObjectNode) node).remove("index");
+                            GeminiAnalysisResponse parsed = objectMapper.treeToValue(node, GeminiAnalysisResponse.class);
+                            if (parsed.getEmotion() != null && parsed.getIntensity() != null) {
+                                results[index] = parsed;
+                            }
+                        }
+                        return Mono.just((List<GeminiAnalysisResponse>) new ArrayList<>(Arrays.asList(results)));
+                    } catch (IOException e) {
+                        log.error("❌ Error parseando JSON de análisis por lotes: {}", e.getMessage());
+                        return Mono.<List<GeminiAnalysisResponse>>error(new RuntimeException("Error procesando respuesta por lotes de Gemini", e));
+                    }
+                })
+                .orElseGet(() -> Mono.error(new RuntimeException("No se pudo extraer contenido JSON válido de la respuesta de Gemini para el lote.")));
+    }
+
+    private Mono<GeminiRecommendationResponse> parseRecommendationFromResponse(GeminiResponseReader.Content apiResponse) {
+        return extractJson(apiResponse)
+                .map(json -> {
                     try {
-                        GeminiRecommendationResponse parsed = objectMapper.readValue(cleanJson, GeminiRecommendationResponse.class);
+                        GeminiRecommendationResponse parsed = objectMapper.readValue(json, GeminiRecommendationResponse.class);
                         if (parsed.getRecommendations() == null || parsed.getRecommendations().isEmpty()) {
-                            log.error("❌ JSON de recomendación incompleto: {}", cleanJson);
+                            log.error("❌ JSON de recomendación incompleto: {}", apiResponse.text());
                             return Mono.<GeminiRecommendationResponse>error(new RuntimeException("Respuesta de recomendación de Gemini incompleta"));
                         }
                         return Mono.just(parsed);
-                    } catch (JsonProcessingException e) {
+                    } catch (IOException e) {
                         log.error("❌ Error parseando JSON de recomendación: {}", e.getMessage());
                         return Mono.<GeminiRecommendationResponse>error(new RuntimeException("Error procesando respuesta de recomendación de Gemini", e));
                     }
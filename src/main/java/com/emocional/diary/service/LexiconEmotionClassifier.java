@@ -0,0 +1,466 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Clasificador de emociones en proceso basado en un léxico en español.
+ * Tokeniza el texto, compara cada palabra (sin tildes y en minúsculas) contra las raíces del léxico
+ * y produce un resultado con la misma forma que el análisis de Gemini: emoción, intensidad,
+ * 2 palabras clave y un resumen a partir de plantillas.
+ *
+ * El recorrido del texto no crea objetos por palabra: las raíces están en una tabla hash de
+ * direccionamiento abierto que se consulta con los hashes de los prefijos del token, y los buffers
+ * de trabajo son por hilo. Solo se crean los Strings del resultado final.
+ * Las negaciones ("no", "nunca"...) anulan las coincidencias de las palabras siguientes y los
+ * intensificadores ("muy", "demasiado"...) aumentan su peso.
+ */
+@Component
+@Slf4j
+public class LexiconEmotionClassifier {
+
+    public static final String NEUTRAL = "neutral";
+
+    private static final String DEFAULT_LEXICON = "lexicon/emociones_es.tsv";
+    private static final int MAX_TOKEN_LENGTH = 32;
+    private static final int MIN_MATCH_LENGTH = 2;
+    private static final int NEGATION_WINDOW = 3;
+    private static final int KEYWORD_MIN_LENGTH = 6;
+
+    private static final int NEGATOR = -1;
+    private static final int INTENSIFIER = -2;
+
+    private static final String[] NEGATORS = {"no", "nunca", "jamas", "tampoco", "ni", "sin"};
+    private static final String[] INTENSIFIERS = {"muy", "demasiado", "tan", "super", "bastante", "sumamente",
+            "extremadamente", "mucho", "mucha", "totalmente"};
+
+    private static final Map<String, String> SUMMARY_TEMPLATES = Map.of(
+            "alegría", "Me alegra leer cómo te sientes. Lo que cuentas sobre %s suma a tu bienestar. Identifica qué lo hizo posible y busca repetirlo esta semana.",
+            "tristeza", "Tu tristeza es válida. Lo que vives con %s pesa, y está bien sentirlo. Date un momento amable hoy y comparte cómo estás con alguien de confianza.",
+            "ansiedad", "Es comprensible sentir ansiedad. Lo relacionado con %s parece estar ocupando mucho espacio. Divide lo pendiente en pasos pequeños y haz una pausa para respirar profundo.",
+            "enojo", "Tu enojo señala que algo importante para ti se vio afectado. Lo ocurrido con %s merece atención. Antes de responder, toma distancia y nombra qué necesitas.",
+            "miedo", "Sentir miedo es una reacción natural. Lo que describes sobre %s genera incertidumbre. Separa lo que puedes controlar de lo que no y empieza por lo primero.",
+            "frustración", "Tu frustración muestra cuánto te importa avanzar. Lo que pasa con %s no define tu valor. Revisa qué está en tus manos y ajusta un objetivo pequeño para mañana.",
+            "esperanza", "Qué bueno percibir esperanza en lo que escribes. Lo que mencionas sobre %s es un buen punto de apoyo. Anota un paso concreto para mantener ese impulso.",
+            "calma", "Se nota calma en tu día. Lo que cuentas sobre %s te ayuda a mantener el equilibrio. Reserva un espacio fijo para cuidar esa tranquilidad.",
+            "cansancio", "Tu cansancio es una señal a escuchar. Lo que implica %s te está pidiendo energía. Prioriza descansar bien hoy y deja para mañana lo que pueda esperar.",
+            "gratitud", "Es valioso que reconozcas lo que agradeces. Lo que dices sobre %s fortalece tu bienestar. Considera escribir cada noche algo por lo que te sientas agradecido."
+    );
+    private static final String NEUTRAL_SUMMARY = "Gracias por registrar tu día. Escribir sobre %s te ayuda a conocerte mejor. Mantén el hábito y observa cómo cambian tus emociones con el tiempo.";
+
+    // Tabla de plegado para Latin-1: minúscula sin tilde, o 0 si el carácter separa palabras
+    private static final char[] FOLD = new char[256];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            FOLD[c] = c;
+            FOLD[c - 32] = c;
+        }
+        mapFold("áàâäãÁÀÂÄÃ", 'a');
+        mapFold("éèêëÉÈÊË", 'e');
+        mapFold("íìîïÍÌÎÏ", 'i');
+        mapFold("óòôöõÓÒÔÖÕ", 'o');
+        mapFold("úùûüÚÙÛÜ", 'u');
+        mapFold("ñÑ", 'n');
+        mapFold("çÇ", 'c');
+    }
+
+    private final String[] emotions;
+    private final char[][] stems;
+    private final boolean[] exact;
+    private final int[] stemKind;
+    private final float[] stemWeight;
+    private final int[] slots;
+    private final int slotMask;
+    private final int maxStemLength;
+    private final ThreadLocal<Scratch> scratch;
+
+    public LexiconEmotionClassifier() {
+        this(openDefaultLexicon());
+    }
+
+    /**
+     * Construye el clasificador a partir de un léxico en formato raíz&lt;TAB&gt;emoción&lt;TAB&gt;peso.
+     * @param lexicon Flujo con el léxico (se cierra al terminar).
+     */
+    public LexiconEmotionClassifier(InputStream lexicon) {
+        Map<String, Integer> emotionIndex = new LinkedHashMap<>();
+        List<char[]> stemList = new ArrayList<>();
+        List<Boolean> exactList = new ArrayList<>();
+        List<Integer> kindList = new ArrayList<>();
+        List<Float> weightList = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(lexicon, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                if (columns.length < 3) {
+                    log.warn("Línea de léxico inválida, se ignora: {}", line);
+                    continue;
+                }
+                String stem = columns[0].trim();
+                boolean isExact = stem.endsWith("$");
+                int emotion = emotionIndex.computeIfAbsent(columns[1].trim(), name -> emotionIndex.size());
+                stemList.add(foldWord(isExact ? stem.substring(0, stem.length() - 1) : stem));
+                exactList.add(isExact);
+                kindList.add(emotion);
+                weightList.add(Float.parseFloat(columns[2].trim()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el léxico de emociones", e);
+        }
+
+        for (String negator : NEGATORS) {
+            stemList.add(foldWord(negator));
+            exactList.add(true);
+            kindList.add(NEGATOR);
+            weightList.add(0f);
+        }
+        for (String intensifier : INTENSIFIERS) {
+            stemList.add(foldWord(intensifier));
+            exactList.add(true);
+            kindList.add(INTENSIFIER);
+            weightList.add(0f);
+        }
+
+        int size = stemList.size();
+        this.emotions = emotionIndex.keySet().toArray(new String[0]);
+        this.stems = stemList.toArray(new char[0][]);
+        this.exact = new boolean[size];
+        this.stemKind = new int[size];
+        this.stemWeight = new float[size];
+        int longest = 0;
+        for (int i = 0; i < size; i++) {
+            exact[i] = exactList.get(i);
+            stemKind[i] = kindList.get(i);
+            stemWeight[i] = weightList.get(i);
+            longest = Math.max(longest, stems[i].length);
+        }
+        this.maxStemLength = Math.min(longest, MAX_TOKEN_LENGTH);
+
+        int capacity = Integer.highestOneBit(Math.max(4, size * 2) - 1) << 1;
+        this.slots = new int[capacity];
+        this.slotMask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int hash = 0;
+            for (char c : stems[i]) {
+                hash = 31 * hash + c;
+            }
+            int slot = mix(hash) & slotMask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & slotMask;
+            }
+            slots[slot] = i + 1;
+        }
+
+        int emotionCount = emotions.length;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(emotionCount));
+        log.info("Léxico de emociones cargado: {} raíces, {} emociones", size, emotionCount);
+    }
+
+    /**
+     * Pre-clasificación barata: emoción dominante y confianza, sin construir el resultado completo.
+     * Útil para decidir si una entrada necesita el análisis de Gemini.
+     * @param text Texto del diario.
+     * @return Emoción, confianza (0 a 1) e intensidad estimada.
+     */
+    public LexiconClassification preClassify(CharSequence text) {
+        Scratch work = scratch.get();
+        int best = score(text, work);
+        return new LexiconClassification(best >= 0 ? emotions[best] : NEUTRAL, confidence(work, best), intensity(work, best));
+    }
+
+    /**
+     * Análisis completo con la misma forma que GeminiAnalysisResponse.
+     * @param text Texto del diario.
+     * @return Resultado con emoción, intensidad, 2 palabras clave y resumen.
+     */
+    public GeminiAnalysisResponse analyze(String text) {
+        Scratch work = scratch.get();
+        int best = score(text, work);
+        String emotion = best >= 0 ? emotions[best] : NEUTRAL;
+
+        List<String> keywords = new ArrayList<>(2);
+        for (int i = 0; i < 2 && keywords.size() < 2; i++) {
+            if (work.keywordEnd[i] > 0) {
+                keywords.add(text.substring(work.keywordStart[i], work.keywordEnd[i]).toLowerCase(Locale.ROOT));
+            }
+        }
+        for (int i = 0; i < 2 && keywords.size() < 2; i++) {
+            if (work.longEnd[i] > 0) {
+                String word = text.substring(work.longStart[i], work.longEnd[i]).toLowerCase(Locale.ROOT);
+                if (!keywords.contains(word)) {
+                    keywords.add(word);
+                }
+            }
+        }
+
+        String template = SUMMARY_TEMPLATES.getOrDefault(emotion, NEUTRAL_SUMMARY);
+        String topic = keywords.isEmpty() ? "lo que escribiste" : keywords.get(0);
+
+        GeminiAnalysisResponse response = new GeminiAnalysisResponse();
+        response.setEmotion(emotion);
+        response.setIntensity(intensity(work, best));
+        response.setKeywords(keywords);
+        response.setSummary(String.format(template, topic));
+        return response;
+    }
+
+    /**
+     * Recorre el texto una sola vez acumulando puntuaciones por emoción en el buffer del hilo.
+     * @return Índice de la emoción con mayor puntuación, o -1 si no hubo coincidencias.
+     */
+    private int score(CharSequence text, Scratch work) {
+        work.reset();
+        int length = text.length();
+        int tokensSinceNegator = Integer.MAX_VALUE / 2;
+        int tokensSinceIntensifier = Integer.MAX_VALUE / 2;
+        int i = 0;
+
+        while (i < length) {
+            char folded = fold(text.charAt(i));
+            if (folded == 0) {
+                i++;
+                continue;
+            }
+
+            int start = i;
+            int tokenLength = 0;
+            int hash = 0;
+            while (i < length && (folded = fold(text.charAt(i))) != 0) {
+                if (tokenLength < MAX_TOKEN_LENGTH) {
+                    work.token[tokenLength] = folded;
+                    hash = 31 * hash + folded;
+                    work.prefixHash[++tokenLength] = hash;
+                }
+                i++;
+            }
+
+            int entry = match(work, tokenLength);
+            int kind = entry >= 0 ? stemKind[entry] : Integer.MIN_VALUE;
+
+            if (kind == NEGATOR) {
+                tokensSinceNegator = 0;
+                continue;
+            }
+            if (kind == INTENSIFIER) {
+                tokensSinceIntensifier = 0;
+                continue;
+            }
+
+            tokensSinceNegator++;
+            tokensSinceIntensifier++;
+
+            if (entry >= 0) {
+                if (tokensSinceNegator > NEGATION_WINDOW) {
+                    boolean intensified = tokensSinceIntensifier <= 2;
+                    float weight = stemWeight[entry] * (intensified ? 1.5f : 1f);
+                    work.scores[kind] += weight;
+                    work.total += weight;
+                    if (intensified) {
+                        work.intensified++;
+                    }
+                    work.offerKeyword(text, start, i, weight);
+                }
+            } else if (tokenLength >= KEYWORD_MIN_LENGTH) {
+                work.offerLongWord(text, start, i);
+            }
+        }
+
+        int best = -1;
+        for (int e = 0; e < work.scores.length; e++) {
+            if (work.scores[e] > 0 && (best < 0 || work.scores[e] > work.scores[best])) {
+                best = e;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Busca la raíz más larga que sea prefijo del token actual.
+     * @return Índice de la raíz, o -1 si ninguna coincide.
+     */
+    private int match(Scratch work, int tokenLength) {
+        for (int len = Math.min(tokenLength, maxStemLength); len >= MIN_MATCH_LENGTH; len--) {
+            int slot = mix(work.prefixHash[len]) & slotMask;
+            int candidate;
+            while ((candidate = slots[slot]) != 0) {
+                int index = candidate - 1;
+                if (stems[index].length == len && (!exact[index] || len == tokenLength) && sameChars(work.token, stems[index], len)) {
+                    return index;
+                }
+                slot = (slot + 1) & slotMask;
+            }
+        }
+        return -1;
+    }
+
+    private float confidence(Scratch work, int best) {
+        if (best < 0 || work.total == 0) {
+            return 0f;
+        }
+        float bestScore = work.scores[best];
+        // Proporción de la evidencia que apoya a la emoción ganadora, penalizando la evidencia escasa
+        return (bestScore / work.total) * Math.min(1f, bestScore / 1.5f);
+    }
+
+    private int intensity(Scratch work, int best) {
+        if (best < 0) {
+            return 3;
+        }
+        int value = Math.round(3 + 1.5f * work.scores[best]) + Math.min(2, work.intensified);
+        return Math.max(1, Math.min(10, value));
+    }
+
+    private static boolean sameChars(char[] token, char[] stem, int length) {
+        for (int i = 0; i < length; i++) {
+            if (token[i] != stem[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static char fold(char c) {
+        if (c < 256) {
+            return FOLD[c];
+        }
+        return Character.isLetter(c) ? Character.toLowerCase(c) : 0;
+    }
+
+    private static char[] foldWord(String word) {
+        char[] folded = new char[word.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(word.charAt(i));
+        }
+        return folded;
+    }
+
+    private static void mapFold(String chars, char target) {
+        for (int i = 0; i < chars.length(); i++) {
+            FOLD[chars.charAt(i)] = target;
+        }
+    }
+
+    private static InputStream openDefaultLexicon() {
+        try {
+            return new ClassPathResource(DEFAULT_LEXICON).getInputStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se encontró el léxico de emociones " + DEFAULT_LEXICON, e);
+        }
+    }
+
+    /**
+     * Resultado de la pre-clasificación.
+     * @param emotion Emoción dominante o "neutral".
+     * @param confidence Confianza de 0 a 1.
+     * @param intensity Intensidad estimada de 1 a 10.
+     */
+    public record LexiconClassification(String emotion, float confidence, int intensity) {
+    }
+
+    /**
+     * Buffers de trabajo reutilizados por hilo para no crear objetos por palabra.
+     */
+    private static final class Scratch {
+
+        private final char[] token = new char[MAX_TOKEN_LENGTH];
+        private final int[] prefixHash = new int[MAX_TOKEN_LENGTH + 1];
+        private final float[] scores;
+        private float total;
+        private int intensified;
+
+        // Las 2 palabras del léxico con más peso y las 2 palabras largas sin coincidencia (posiciones en el texto)
+        private final int[] keywordStart = new int[2];
+        private final int[] keywordEnd = new int[2];
+        private final float[] keywordWeight = new float[2];
+        private final int[] longStart = new int[2];
+        private final int[] longEnd = new int[2];
+
+        private Scratch(int emotionCount) {
+            this.scores = new float[emotionCount];
+        }
+
+        private void reset() {
+            Arrays.fill(scores, 0f);
+            total = 0f;
+            intensified = 0;
+            keywordEnd[0] = keywordEnd[1] = 0;
+            keywordWeight[0] = keywordWeight[1] = 0f;
+            longEnd[0] = longEnd[1] = 0;
+        }
+
+        private void offerKeyword(CharSequence text, int start, int end, float weight) {
+            for (int k = 0; k < 2; k++) {
+                if (keywordEnd[k] > 0 && sameWord(text, keywordStart[k], keywordEnd[k], start, end)) {
+                    return;
+                }
+            }
+            if (keywordEnd[0] == 0 || weight > keywordWeight[0]) {
+                keywordStart[1] = keywordStart[0];
+                keywordEnd[1] = keywordEnd[0];
+                keywordWeight[1] = keywordWeight[0];
+                keywordStart[0] = start;
+                keywordEnd[0] = end;
+                keywordWeight[0] = weight;
+            } else if (keywordEnd[1] == 0 || weight > keywordWeight[1]) {
+                keywordStart[1] = start;
+                keywordEnd[1] = end;
+                keywordWeight[1] = weight;
+            }
+        }
+
+        private void offerLongWord(CharSequence text, int start, int end) {
+            int length = end - start;
+            for (int k = 0; k < 2; k++) {
+                if (longEnd[k] > 0 && sameWord(text, longStart[k], longEnd[k], start, end)) {
+                    return;
+                }
+            }
+            if (longEnd[0] == 0 || length > longEnd[0] - longStart[0]) {
+                longStart[1] = longStart[0];
+                longEnd[1] = longEnd[0];
+                longStart[0] = start;
+                longEnd[0] = end;
+            } else if (longEnd[1] == 0 || length > longEnd[1] - longStart[1]) {
+                longStart[1] = start;
+                longEnd[1] = end;
+            }
+        }
+
+        private static boolean sameWord(CharSequence text, int aStart, int aEnd, int bStart, int bEnd) {
+            if (aEnd - aStart != bEnd - bStart) {
+                return false;
+            }
+            for (int i = 0; i < aEnd - aStart; i++) {
+                if (fold(text.charAt(aStart + i)) != fold(text.charAt(bStart + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.RecommendationResponse;
+import com.emocional.diary.event.DiaryEntryChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cache de recomendaciones por usuario.
+ * Cada valor guarda la versión de los datos con que se generó (derivada de la última modificación
+ * de las entradas del usuario y del día actual); si la versión cambió, el valor no se reutiliza.
+ * Además se invalida explícitamente al crear o editar una entrada y caduca tras la edad máxima,
+ * de modo que las llamadas a Gemini dependen de las escrituras y no de las visitas al dashboard.
+ */
+@Component
+@Slf4j
+public class RecommendationCache {
+
+    private final Cache<Long, CachedRecommendations> cache;
+
+    @Value("${diary.recommendations.cache.enabled:true}")
+    private boolean enabled;
+
+    public RecommendationCache(MeterRegistry meterRegistry,
+                               @Value("${diary.recommendations.cache.max-size:10000}") long maxSize,
+                               @Value("${diary.recommendations.cache.max-age-minutes:360}") long maxAgeMinutes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(maxAgeMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gemini.recommendations");
+    }
+
+    /**
+     * Devuelve las recomendaciones del usuario si se generaron con la misma versión de datos.
+     */
+    public Optional<List<RecommendationResponse>> get(Long userId, String version) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CachedRecommendations cached = cache.getIfPresent(userId);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        if (!cached.version().equals(version)) {
+            cache.asMap().remove(userId, cached);
+            return Optional.empty();
+        }
+        return Optional.of(cached.recommendations());
+    }
+
+    /**
+     * Guarda las recomendaciones generadas con la versión de datos leída antes de generarlas.
+     * Las listas vacías (Gemini falló) no se guardan.
+     */
+    public void put(Long userId, String version, List<RecommendationResponse> recommendations) {
+        if (enabled && !recommendations.isEmpty()) {
+            cache.put(userId, new CachedRecommendations(version, List.copyOf(recommendations)));
+        }
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDiaryEntryChanged(DiaryEntryChangedEvent event) {
+        log.debug("Invalidando recomendaciones en cache del usuario {} (entrada {})", event.userId(), event.entryId());
+        invalidate(event.userId());
+    }
+
+    private record CachedRecommendations(String version, List<RecommendationResponse> recommendations) {
+    }
+}
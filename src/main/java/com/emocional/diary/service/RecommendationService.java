@@ -1,9 +1,24 @@
 package com.emocional.diary.service;
 
 import com.emocional.diary.dto.RecommendationResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
 public interface RecommendationService {
-    List<RecommendationResponse> getRecommendations(Long userId);
+    /**
+     * Recomendaciones personalizadas a partir de las entradas de los últimos 7 días (cacheadas por versión
+     * de los datos). La espera a Gemini no bloquea el hilo de la petición.
+     * @param userId El ID del usuario autenticado.
+     * @return Mono con las recomendaciones, o una lista vacía si Gemini no devolvió ninguna.
+     */
+    Mono<List<RecommendationResponse>> getRecommendations(Long userId);
+
+    /**
+     * Igual que getRecommendations, pero emite cada recomendación en cuanto Gemini la genera.
+     * @param userId El ID del usuario autenticado.
+     * @return Flux con las recomendaciones a medida que llegan.
+     */
+    Flux<RecommendationResponse> streamRecommendations(Long userId);
 }
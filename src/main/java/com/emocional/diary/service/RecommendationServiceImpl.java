@@ -4,14 +4,19 @@ import com.emocional.diary.dto.RecommendationResponse;
 import com.emocional.diary.dto.gemini.GeminiRecommendationResponse;
 import com.emocional.diary.model.DiaryEntry;
 import com.emocional.diary.repository.DiaryEntryRepository;
+import com.emocional.diary.util.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -22,9 +27,64 @@ public class RecommendationServiceImpl implements RecommendationService {
 
     private final GeminiService geminiService;
     private final DiaryEntryRepository diaryEntryRepository;
+    private final RecommendationCache recommendationCache;
+    // Peticiones concurrentes del mismo usuario (pestañas restauradas, reintentos) comparten una sola llamada
+    private final SingleFlight<Long, List<RecommendationResponse>> singleFlight = new SingleFlight<>();
 
     @Override
-    public List<RecommendationResponse> getRecommendations(Long userId) {
+    public Mono<List<RecommendationResponse>> getRecommendations(Long userId) {
+        return Mono.fromFuture(() -> singleFlight.executeAsync(userId, () -> loadRecommendations(userId).toFuture()));
+    }
+
+    private Mono<List<RecommendationResponse>> loadRecommendations(Long userId) {
+        // La versión se lee antes de generar: si el usuario escribe mientras tanto, el resultado queda obsoleto
+        String version = dataVersion(userId);
+        Optional<List<RecommendationResponse>> cached = recommendationCache.get(userId, version);
+        if (cached.isPresent()) {
+            log.debug("Recomendaciones servidas desde cache para usuario {}", userId);
+            return Mono.just(cached.get());
+        }
+
+        // Las consultas a la base de datos se hacen aquí, en el hilo de la petición; la espera a Gemini no ocupa hilos
+        return geminiService.generateRecommendation(buildPrompt(userId))
+                .filter(geminiResponse -> geminiResponse.getRecommendations() != null)
+                .map(geminiResponse -> {
+                    List<RecommendationResponse> recommendations = geminiResponse.getRecommendations().stream()
+                            .map(this::toResponse)
+                            .collect(Collectors.toList());
+                    recommendationCache.put(userId, version, recommendations);
+                    return recommendations;
+                })
+                .defaultIfEmpty(List.of()); // Return empty list if Gemini fails
+    }
+
+    @Override
+    public Flux<RecommendationResponse> streamRecommendations(Long userId) {
+        String version = dataVersion(userId);
+        Optional<List<RecommendationResponse>> cached = recommendationCache.get(userId, version);
+        if (cached.isPresent()) {
+            return Flux.fromIterable(cached.get());
+        }
+
+        // La consulta a la base de datos se hace aquí, en el hilo de la petición; solo Gemini es streaming
+        String prompt = buildPrompt(userId);
+        List<RecommendationResponse> received = new ArrayList<>();
+        return geminiService.streamRecommendations(prompt)
+                .map(this::toResponse)
+                .doOnNext(received::add)
+                .doOnComplete(() -> recommendationCache.put(userId, version, received));
+    }
+
+    /**
+     * Versión de los datos de entrada de las recomendaciones: última modificación de las entradas
+     * del usuario más el día actual (la ventana de 7 días avanza cada día).
+     */
+    private String dataVersion(Long userId) {
+        Instant lastModified = diaryEntryRepository.findLastModifiedAtByUserId(userId);
+        return LocalDate.now() + "|" + (lastModified != null ? lastModified.toEpochMilli() : "none");
+    }
+
+    private String buildPrompt(Long userId) {
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusDays(7); // Last 7 days
 
@@ -40,22 +100,17 @@ public class RecommendationServiceImpl implements RecommendationService {
                         "Devuelve la respuesta en formato JSON como un array de objetos con la clave 'recommendations'. " +
                         "Ejemplo: { \"recommendations\": [ { \"title\": \"...\", \"description\": \"...\", \"category\": \"...\", \"priority\": \"...\" } ] }\n\n" +
                         "Contexto del usuario: " + userContext;
+        return prompt;
+    }
 
-        GeminiRecommendationResponse geminiResponse = geminiService.generateRecommendation(prompt).block();
-
-        if (geminiResponse != null && geminiResponse.getRecommendations() != null) {
-            return geminiResponse.getRecommendations().stream()
-                    .map(rec -> RecommendationResponse.builder()
-                            .id(UUID.randomUUID().toString())
-                            .title(rec.getTitle())
-                            .description(rec.getDescription())
-                            .category(rec.getCategory())
-                            .priority(rec.getPriority() != null ? rec.getPriority() : "medium") // Default to medium if not provided
-                            .build())
-                    .collect(Collectors.toList());
-        }
-        
-        return List.of(); // Return empty list if Gemini fails
+    private RecommendationResponse toResponse(GeminiRecommendationResponse.Recommendation rec) {
+        return RecommendationResponse.builder()
+                .id(UUID.randomUUID().toString())
+                .title(rec.getTitle())
+                .description(rec.getDescription())
+                .category(rec.getCategory())
+                .priority(rec.getPriority() != null ? rec.getPriority() : "medium") // Default to medium if not provided
+                .build();
     }
 
     private String buildUserContextFromEntries(List<DiaryEntry> entries) {
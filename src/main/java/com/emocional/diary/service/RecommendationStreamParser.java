@@ -0,0 +1,101 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.gemini.GeminiRecommendationResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Parser incremental de recomendaciones que llegan por fragmentos desde streamGenerateContent.
+ * Recorre cada fragmento una sola vez llevando la profundidad de llaves/corchetes y el estado de
+ * cadenas; en cuanto se cierra un objeto que es elemento de un array (cada recomendación) lo
+ * deserializa y lo devuelve, sin esperar al resto de la respuesta. Tolera vallas de markdown
+ * y texto alrededor del JSON porque solo empieza a acumular al ver la primera llave o corchete.
+ * No es thread-safe: se crea una instancia por stream.
+ */
+@Slf4j
+public class RecommendationStreamParser {
+
+    private final ObjectMapper objectMapper;
+    private final StringBuilder buffer = new StringBuilder();
+    // Pila de contenedores abiertos ('{' o '[') y posición de inicio de cada uno en el buffer
+    private final StringBuilder containers = new StringBuilder();
+    private final List<Integer> starts = new ArrayList<>();
+    private boolean inString;
+    private boolean escaped;
+
+    public RecommendationStreamParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Procesa un nuevo fragmento de texto del modelo.
+     * @param chunk Texto recibido.
+     * @return Las recomendaciones que quedaron completas con este fragmento (puede estar vacía).
+     */
+    public List<GeminiRecommendationResponse.Recommendation> feed(String chunk) {
+        List<GeminiRecommendationResponse.Recommendation> completed = new ArrayList<>();
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+
+            if (containers.length() == 0 && c != '{' && c != '[') {
+                continue; // texto fuera del JSON (vallas de markdown, explicaciones)
+            }
+            buffer.append(c);
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> inString = true;
+                case '{', '[' -> {
+                    containers.append(c);
+                    starts.add(buffer.length() - 1);
+                }
+                case '}', ']' -> {
+                    int depth = containers.length();
+                    if (depth == 0) {
+                        break;
+                    }
+                    int start = starts.remove(depth - 1);
+                    containers.setLength(depth - 1);
+                    boolean isArrayElement = c == '}' && depth >= 2 && containers.charAt(depth - 2) == '[';
+                    if (isArrayElement) {
+                        parse(buffer.substring(start)).ifPresent(completed::add);
+                    }
+                    if (containers.length() == 0) {
+                        buffer.setLength(0);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return completed;
+    }
+
+    private Optional<GeminiRecommendationResponse.Recommendation> parse(String json) {
+        try {
+            GeminiRecommendationResponse.Recommendation recommendation =
+                    objectMapper.readValue(json, GeminiRecommendationResponse.Recommendation.class);
+            if (recommendation.getTitle() == null) {
+                return Optional.empty();
+            }
+            return Optional.of(recommendation);
+        } catch (Exception e) {
+            log.warn("⚠️ Recomendación parcial no interpretable, se descarta: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import com.emocional.diary.model.AnalysisEngine;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Punto de entrada único para el análisis de sentimientos de una entrada de diario.
+ * Consulta primero el cache direccionado por contenido y solo llama a Gemini en caso de fallo,
+ * pasando por la etapa de micro-batching si está activa. Las llamadas a Gemini pasan por un
+ * circuit breaker; si Gemini falla o el circuito está abierto se usa el clasificador por léxico.
+ * El motor (GEMINI, LEXICON o AUTO) se elige por despliegue y puede sobrescribirse por petición.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SentimentAnalysisService {
+
+    private final GeminiService geminiService;
+    private final AnalysisCacheService analysisCacheService;
+    private final GeminiBatchingAnalyzer geminiBatchingAnalyzer;
+    private final LexiconEmotionClassifier lexiconEmotionClassifier;
+    private final CircuitBreaker geminiCircuitBreaker;
+
+    @Value("${diary.analysis.engine:GEMINI}")
+    private AnalysisEngine defaultEngine;
+
+    // Confianza mínima de la pre-clasificación para que AUTO no llame a Gemini
+    @Value("${diary.analysis.auto-min-confidence:0.6}")
+    private double autoMinConfidence;
+
+    /**
+     * Resuelve el motor de análisis y, si es LEXICON o AUTO con una pre-clasificación confiable,
+     * devuelve el resultado local (tarda microsegundos, no necesita ir a segundo plano).
+     * @param content Texto del diario.
+     * @param requestedEngine Motor pedido en la petición, o null para usar el del despliegue.
+     * @return El análisis local, o vacío si la entrada debe analizarse con Gemini.
+     */
+    public Optional<GeminiAnalysisResponse> analyzeLocallyIfRouted(String content, AnalysisEngine requestedEngine) {
+        AnalysisEngine engine = requestedEngine != null ? requestedEngine : defaultEngine;
+        if (engine == AnalysisEngine.GEMINI) {
+            return Optional.empty();
+        }
+        if (engine == AnalysisEngine.AUTO) {
+            LexiconEmotionClassifier.LexiconClassification preClassification = lexiconEmotionClassifier.preClassify(content);
+            if (preClassification.confidence() < autoMinConfidence) {
+                log.debug("Pre-clasificación poco confiable ({}), se usará Gemini", preClassification.confidence());
+                return Optional.empty();
+            }
+        }
+        GeminiAnalysisResponse analysis = lexiconEmotionClassifier.analyze(content);
+        log.info("✅ Análisis por léxico - Emoción: {}", analysis.getEmotion());
+        return Optional.of(analysis);
+    }
+
+    /**
+     * Analiza el texto del diario, reutilizando un resultado previo si el mismo contenido
+     * ya fue analizado con el mismo prompt y modelo. Nunca falla por culpa de Gemini: en ese caso
+     * devuelve el resultado del analizador local con fallback=true.
+     * @param content Texto del diario.
+     * @return Mono con el resultado del análisis.
+     */
+    public Mono<GeminiAnalysisResponse> analyze(String content) {
+        return analyzeWithGemini(content)
+                .onErrorResume(error -> {
+                    log.warn("⚠️ Gemini no disponible ({}), usando el analizador local", error.getMessage());
+                    return Mono.fromCallable(() -> analyzeLocally(content));
+                });
+    }
+
+    /**
+     * Igual que analyze(), pero sin analizador local: propaga el error si Gemini falla
+     * o el circuito está abierto. Lo usa el worker para los reintentos y re-análisis.
+     */
+    public Mono<GeminiAnalysisResponse> analyzeWithGemini(String content) {
+        return Mono.defer(() -> {
+            String key = analysisCacheService.keyFor(content, geminiService.getAnalysisVersion());
+            return analysisCacheService.get(key)
+                    .map(cached -> {
+                        log.info("✅ Análisis obtenido del cache - Emoción: {}", cached.getEmotion());
+                        return Mono.just(cached);
+                    })
+                    .orElseGet(() -> callGemini(content)
+                            .transformDeferred(CircuitBreakerOperator.of(geminiCircuitBreaker))
+                            .doOnNext(analysis -> analysisCacheService.put(key, analysis)));
+        });
+    }
+
+    /**
+     * Resultado del analizador local, para cuando se agotan los reintentos con Gemini.
+     */
+    public GeminiAnalysisResponse analyzeLocally(String content) {
+        GeminiAnalysisResponse analysis = lexiconEmotionClassifier.analyze(content);
+        analysis.setFallback(true);
+        return analysis;
+    }
+
+    /**
+     * Indica si el circuito de Gemini está cerrado, es decir, si tiene sentido re-analizar
+     * las entradas que quedaron con resultado de fallback.
+     */
+    public boolean isGeminiAvailable() {
+        return geminiCircuitBreaker.getState() == CircuitBreaker.State.CLOSED;
+    }
+
+    private Mono<GeminiAnalysisResponse> callGemini(String content) {
+        return geminiBatchingAnalyzer.isEnabled()
+                ? geminiBatchingAnalyzer.submit(content)
+                : geminiService.analyzeSentiment(content);
+    }
+}
@@ -1,7 +1,27 @@
 package com.emocional.diary.service;
 
+import com.emocional.diary.dto.DailyStatsItem;
 import com.emocional.diary.dto.WeeklyStatsResponse;
+import com.emocional.diary.dto.WorryDistributionItem;
+
+import java.util.List;
 
 public interface StatsService {
     WeeklyStatsResponse getWeeklyStats(Long userId);
+
+    /**
+     * Estadísticas día a día de los últimos {@code days} días (hoy incluido), leídas del agregado diario.
+     * @param userId ID del usuario.
+     * @param days Número de días del rango.
+     * @return Un elemento por día en orden cronológico; los días sin entradas van con ceros.
+     */
+    List<DailyStatsItem> getDailyStats(Long userId, int days);
+
+    /**
+     * Las {@code limit} preocupaciones principales más frecuentes del usuario en todo su historial.
+     * @param userId ID del usuario.
+     * @param limit Número máximo de preocupaciones.
+     * @return Preocupaciones con su número de entradas, de mayor a menor.
+     */
+    List<WorryDistributionItem> getTopWorries(Long userId, int limit);
 }
@@ -1,98 +1,92 @@
 package com.emocional.diary.service;
 
-import com.emocional.diary.dto.StressHistoryItem;
+import com.emocional.diary.dto.DailyStatsItem;
 import com.emocional.diary.dto.WeeklyStatsResponse;
-import com.emocional.diary.model.DiaryEntry;
-import com.emocional.diary.repository.DiaryEntryRepository;
+import com.emocional.diary.dto.WorryDistributionItem;
+import com.emocional.diary.model.UserDailyStats;
+import com.emocional.diary.repository.UserDailyStatsRepository;
+import com.emocional.diary.repository.UserWorryCountRepository;
+import com.emocional.diary.repository.WeeklyStatsQuery;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Estadísticas del usuario calculadas sobre el agregado diario user_daily_stats:
+ * el coste depende del número de días del rango, no del número ni del tamaño de las entradas.
+ * No se cargan entidades DiaryEntry.
+ */
 @Service
 @RequiredArgsConstructor
 public class StatsServiceImpl implements StatsService {
 
-    private final DiaryEntryRepository diaryEntryRepository;
+    private final WeeklyStatsQuery weeklyStatsQuery;
+    private final UserDailyStatsRepository userDailyStatsRepository;
+    private final UserWorryCountRepository userWorryCountRepository;
+    private final ZoneId diaryZoneId;
 
     @Override
+    @Transactional(readOnly = true)
     public WeeklyStatsResponse getWeeklyStats(Long userId) {
-        ZoneId defaultZoneId = ZoneId.systemDefault();
-        Instant now = Instant.now();
-        Instant fourteenDaysAgo = now.minus(14, ChronoUnit.DAYS);
-
-        List<DiaryEntry> recentEntries = diaryEntryRepository.findByUserIdAndCreatedAtBetween(userId, fourteenDaysAgo, now);
-
-        Instant sevenDaysAgo = now.minus(7, ChronoUnit.DAYS);
-
-        // Partition entries into current and previous week
-        Map<Boolean, List<DiaryEntry>> partitionedEntries = recentEntries.stream()
-                .collect(Collectors.partitioningBy(entry -> !entry.getCreatedAt().isBefore(sevenDaysAgo)));
-
-        List<DiaryEntry> currentWeekEntries = partitionedEntries.get(true);
-        List<DiaryEntry> previousWeekEntries = partitionedEntries.get(false);
-
-        // --- Calculations for the current week ---
-        double averageStress = currentWeekEntries.stream()
-                .filter(entry -> entry.getUserStressLevel() != null)
-                .mapToInt(DiaryEntry::getUserStressLevel)
-                .average()
-                .orElse(0.0);
-
-
-// ... imports
-
-// ... inside StatsServiceImpl
-
-        double averageSleep = currentWeekEntries.stream()
-                .filter(entry -> entry.getUserSleepHours() != null)
-                .mapToInt(DiaryEntry::getUserSleepHours)
-                .average()
-                .orElse(0.0);
-
-        // Find main worry from all-time entries
-        List<String> frequentWorries = diaryEntryRepository.findMostFrequentMainWorry(userId, PageRequest.of(0, 1));
-        String mainWorry = frequentWorries.isEmpty() ? "Ninguna preocupación dominante" : frequentWorries.get(0);
-
-        // --- Calculation for the previous week ---
-        double previousWeekStress = previousWeekEntries.stream()
-                .filter(entry -> entry.getUserStressLevel() != null)
-                .mapToInt(DiaryEntry::getUserStressLevel)
-                .average()
-                .orElse(0.0);
+        // Medias de ambas semanas, historial de 7 días y preocupación principal en una sola consulta
+        WeeklyStatsResponse weeklyStats = weeklyStatsQuery.findWeeklyStats(userId, diaryZoneId);
+        if (weeklyStats.getMainWorry() == null) {
+            weeklyStats.setMainWorry("Ninguna preocupación dominante");
+        }
+        return weeklyStats;
+    }
 
-        // --- Build Stress History for the last 7 days ---
-        Map<LocalDate, Double> dailyStressAverages = currentWeekEntries.stream()
-                .collect(Collectors.groupingBy(
-                        entry -> entry.getCreatedAt().atZone(defaultZoneId).toLocalDate(),
-                        Collectors.averagingInt(DiaryEntry::getUserStressLevel)
-                ));
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyStatsItem> getDailyStats(Long userId, int days) {
+        LocalDate today = LocalDate.now(diaryZoneId);
+        LocalDate from = today.minusDays(days - 1L);
+
+        Map<LocalDate, UserDailyStats> byDate = userDailyStatsRepository
+                .findByUserIdAndStatDateBetweenOrderByStatDateAsc(userId, from, today).stream()
+                .collect(Collectors.toMap(UserDailyStats::getStatDate, Function.identity()));
+
+        return Stream.iterate(from, date -> date.plusDays(1))
+                .limit(days)
+                .map(date -> {
+                    UserDailyStats day = byDate.get(date);
+                    if (day == null) {
+                        return DailyStatsItem.builder().date(date).build();
+                    }
+                    return DailyStatsItem.builder()
+                            .date(date)
+                            .entries(day.getEntryCount())
+                            .averageStress(average(day.getStressSum(), day.getStressCount()))
+                            .averageSleep(average(day.getSleepSum(), day.getSleepCount()))
+                            .averageMood(average(day.getMoodSum(), day.getMoodCount()))
+                            .dominantEmotion(day.getDominantEmotion())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
 
-        List<StressHistoryItem> stressHistory = Stream.iterate(LocalDate.now().minusDays(6), date -> date.plusDays(1))
-                .limit(7)
-                .map(date -> StressHistoryItem.builder()
-                        .date(date)
-                        .value(dailyStressAverages.getOrDefault(date, 0.0))
+    @Override
+    @Transactional(readOnly = true)
+    public List<WorryDistributionItem> getTopWorries(Long userId, int limit) {
+        return userWorryCountRepository.findTopByUserId(userId, PageRequest.of(0, limit)).stream()
+                .map(count -> WorryDistributionItem.builder()
+                        .category(count.getWorry())
+                        .count(count.getEntryCount())
                         .build())
                 .collect(Collectors.toList());
+    }
 
-        return WeeklyStatsResponse.builder()
-                .averageStress(averageStress)
-                .previousWeekStress(previousWeekStress)
-                .averageSleep(averageSleep)
-                .mainWorry(mainWorry)
-                .stressHistory(stressHistory)
-                .build();
+    private static double average(long sum, long count) {
+        return count == 0 ? 0.0 : (double) sum / count;
     }
 }
@@ -0,0 +1,65 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.repository.UserWorryCountRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene la tabla user_worry_count al día con las escrituras de diary_entry, en la misma transacción.
+ * Se cuentan las mismas preocupaciones que contaba el antiguo GROUP BY: no nulas, no vacías y distintas de "Ninguna".
+ */
+@Service
+@RequiredArgsConstructor
+public class WorryCounterService {
+
+    private static final String NO_WORRY = "Ninguna";
+
+    private final UserWorryCountRepository userWorryCountRepository;
+
+    /**
+     * Registra el cambio de preocupación principal de una entrada.
+     * @param userId ID del usuario propietario.
+     * @param previousWorry Preocupación anterior (null al crear la entrada).
+     * @param newWorry Preocupación nueva.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onWorryChanged(Long userId, String previousWorry, String newWorry) {
+        String previous = countable(previousWorry) ? previousWorry : null;
+        String current = countable(newWorry) ? newWorry : null;
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        if (previous != null) {
+            userWorryCountRepository.decrement(userId, previous);
+            userWorryCountRepository.deleteIfEmpty(userId, previous);
+        }
+        if (current != null) {
+            userWorryCountRepository.increment(userId, current);
+        }
+    }
+
+    /**
+     * Registra un conjunto de entradas nuevas con una sola actualización por preocupación distinta.
+     * @param userId ID del usuario propietario.
+     * @param worries Preocupaciones principales de las entradas insertadas.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onEntriesAdded(Long userId, Collection<String> worries) {
+        Map<String, Long> counts = worries.stream()
+                .filter(WorryCounterService::countable)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        counts.forEach((worry, count) -> userWorryCountRepository.add(userId, worry, count.intValue()));
+    }
+
+    static boolean countable(String worry) {
+        return worry != null && !worry.trim().isEmpty() && !NO_WORRY.equals(worry);
+    }
+}
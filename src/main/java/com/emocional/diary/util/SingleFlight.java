@@ -0,0 +1,102 @@
+package com.emocional.diary.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa llamadas concurrentes con la misma clave en una sola ejecución ("single-flight").
+ * El primer llamador ejecuta el cálculo en su propio hilo; los que llegan mientras está en curso
+ * esperan a ese mismo resultado (o a su excepción) en lugar de repetir el trabajo. No usa
+ * bloqueos: la coordinación es un putIfAbsent sobre un ConcurrentHashMap, y ningún hilo espera
+ * más de lo que tarda el cálculo en curso. Terminado el cálculo la clave se libera, así que las
+ * llamadas posteriores vuelven a ejecutarlo (el cacheo de resultados corresponde al llamador).
+ * @param <K> Tipo de la clave.
+ * @param <V> Tipo del resultado.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Ejecuta el cálculo para la clave, o se une al que ya esté en curso.
+     * @param key Clave que identifica el cálculo.
+     * @param computation Cálculo a ejecutar si no hay otro en curso.
+     * @return El resultado del cálculo compartido.
+     * @throws RuntimeException La misma excepción que lanzó el cálculo compartido.
+     */
+    public V execute(K key, Supplier<V> computation) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            V result = computation.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Variante sin bloqueo de execute para cálculos asíncronos: ningún llamador espera en su hilo,
+     * todos reciben un futuro que se completa con el resultado del cálculo compartido.
+     * Comparte las claves en curso con execute.
+     * @param key Clave que identifica el cálculo.
+     * @param computation Inicia el cálculo si no hay otro en curso.
+     * @return Futuro con el resultado (o la excepción) del cálculo compartido.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> computation) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            // Copia: cancelar o completar el futuro devuelto no afecta a los demás llamadores
+            return existing.copy();
+        }
+
+        try {
+            computation.get().whenComplete((result, error) -> {
+                inFlight.remove(key, flight);
+                if (error != null) {
+                    flight.completeExceptionally(error);
+                } else {
+                    flight.complete(result);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+        return flight.copy();
+    }
+
+    /**
+     * @return Número de claves con un cálculo en curso.
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+-- Rellena diary_entry.entry_date en las entradas creadas antes de existir la columna, a partir de created_at
+-- en la zona del diario (diary.time-zone; si está vacía, la zona de la sesión, que es la de la JVM).
+-- Si un usuario ya tenía varias entradas el mismo día, solo la primera recibe la fecha; las demás quedan en
+-- NULL, que el índice único permite, así la restricción (user_id, entry_date) se cumple sin borrar datos.
+UPDATE diary_entry e
+SET entry_date = d.day
+FROM (SELECT DISTINCT ON (user_id, day) id, user_id, day
+      FROM (SELECT p.id, p.user_id, p.created_at, (p.created_at AT TIME ZONE zone.name)::date AS day
+            FROM diary_entry p,
+                 (SELECT COALESCE(NULLIF('${diary_time_zone}', ''), current_setting('TimeZone')) AS name) zone
+            WHERE p.entry_date IS NULL) pending
+      ORDER BY user_id, day, created_at, id) d
+WHERE e.id = d.id
+  AND NOT EXISTS (SELECT 1 FROM diary_entry x WHERE x.user_id = d.user_id AND x.entry_date = d.day);
@@ -0,0 +1,39 @@
+-- Normaliza con el diccionario de emociones (V8) las entradas escritas antes de existir diary_entry.emotion_id:
+-- emotion_id, ai_emotion con el nombre canónico y la emoción dominante de user_daily_stats. Las emociones fuera
+-- del diccionario se dejan como están.
+-- La comparación repite la de EmotionDictionary.fold sin depender de la extensión unaccent: sin tildes,
+-- minúsculas y con los signos y espacios reducidos a un único espacio. Como en EmotionDictionary, el código y
+-- el nombre de una categoría tienen prioridad sobre los alias.
+CREATE FUNCTION pg_temp.fold_emotion(value TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE
+    AS $$ SELECT trim(regexp_replace(lower(translate(value, 'ÁÀÄÂÃáàäâãÉÈËÊéèëêÍÌÏÎíìïîÓÒÖÔÕóòöôõÚÙÜÛúùüûÑñÇç', 'AAAAAaaaaaEEEEeeeeIIIIiiiiOOOOOoooooUUUUuuuuNnCc')), '[^[:alnum:]]+', ' ', 'g')) $$;
+
+WITH names AS (
+    SELECT id, label, 1 AS priority, code AS name FROM emotion
+    UNION ALL
+    SELECT id, label, 1, label FROM emotion
+    UNION ALL
+    SELECT e.id, e.label, 2, alias FROM emotion e, unnest(e.aliases) AS alias
+),
+dictionary AS (
+    SELECT DISTINCT ON (folded) folded, id, label
+    FROM (SELECT pg_temp.fold_emotion(name) AS folded, id, label, priority FROM names) n
+    ORDER BY folded, priority, id
+),
+resolved AS (
+    SELECT r.ai_emotion AS raw, d.id, d.label
+    FROM (SELECT DISTINCT ai_emotion FROM diary_entry WHERE emotion_id IS NULL AND ai_emotion IS NOT NULL) r
+    JOIN dictionary d ON d.folded = pg_temp.fold_emotion(r.ai_emotion)
+),
+stats AS (
+    UPDATE user_daily_stats s
+    SET dominant_emotion = r.label
+    FROM resolved r
+    WHERE s.dominant_emotion = r.raw AND r.raw <> r.label
+)
+UPDATE diary_entry e
+SET emotion_id = r.id, ai_emotion = r.label
+FROM resolved r
+WHERE e.emotion_id IS NULL AND e.ai_emotion = r.raw;
+
+DROP FUNCTION pg_temp.fold_emotion(TEXT);
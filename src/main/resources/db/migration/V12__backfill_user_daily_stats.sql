@@ -0,0 +1,16 @@
+-- Genera user_daily_stats para las entradas escritas antes de existir la tabla, con el día en la zona del diario
+-- (diary.time-zone; si está vacía, la zona de la sesión, que es la de la JVM).
+-- Solo actúa si la tabla está vacía; a partir de ahí la mantiene DailyStatsRollupService.
+INSERT INTO user_daily_stats (user_id, stat_date, entry_count, stress_sum, stress_count,
+                              sleep_sum, sleep_count, mood_sum, mood_count, dominant_emotion)
+SELECT user_id, day, COUNT(*),
+       COALESCE(SUM(user_stress_level), 0), COUNT(user_stress_level),
+       COALESCE(SUM(user_sleep_hours), 0), COUNT(user_sleep_hours),
+       COALESCE(SUM(user_mood_rating), 0), COUNT(user_mood_rating),
+       mode() WITHIN GROUP (ORDER BY ai_emotion)
+FROM (SELECT e.*, (e.created_at AT TIME ZONE zone.name)::date AS day
+      FROM diary_entry e,
+           (SELECT COALESCE(NULLIF('${diary_time_zone}', ''), current_setting('TimeZone')) AS name) zone) d
+WHERE NOT EXISTS (SELECT 1 FROM user_daily_stats)
+GROUP BY user_id, day
+ON CONFLICT (user_id, stat_date) DO NOTHING;
@@ -0,0 +1,9 @@
+-- Genera user_worry_count a partir de las entradas escritas antes de existir la tabla.
+-- Solo actúa si la tabla está vacía; después la mantiene WorryCounterService.
+INSERT INTO user_worry_count (user_id, worry, entry_count)
+SELECT user_id, main_worry, COUNT(*)
+FROM diary_entry
+WHERE main_worry IS NOT NULL AND trim(main_worry) <> '' AND main_worry <> 'Ninguna'
+  AND NOT EXISTS (SELECT 1 FROM user_worry_count)
+GROUP BY user_id, main_worry
+ON CONFLICT (user_id, worry) DO NOTHING;
@@ -0,0 +1,44 @@
+-- Esquema base del diario, equivalente al que generaba spring.jpa.hibernate.ddl-auto=update.
+-- Es idempotente: en bases de datos creadas por Hibernate (sin historial de Flyway) solo añade lo
+-- que falte, por eso Flyway hace baseline en la versión 0 y esta migración se ejecuta siempre.
+
+CREATE TABLE IF NOT EXISTS diary_entry (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id            BIGINT       NOT NULL,
+    content            TEXT         NOT NULL,
+    user_stress_level  INTEGER      NOT NULL,
+    user_mood_rating   INTEGER      NOT NULL,
+    user_sleep_hours   INTEGER      NOT NULL,
+    main_worry         VARCHAR(500),
+    ai_emotion         VARCHAR(100),
+    ai_intensity       INTEGER,
+    ai_summary         TEXT,
+    ai_keywords        TEXT[],
+    analysis_status    VARCHAR(20),
+    analysis_attempts  INTEGER,
+    entry_date         DATE,
+    created_at         TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at         TIMESTAMP(6) WITH TIME ZONE
+);
+
+-- Columnas añadidas después de la primera versión del esquema
+ALTER TABLE diary_entry ADD COLUMN IF NOT EXISTS ai_keywords TEXT[];
+ALTER TABLE diary_entry ADD COLUMN IF NOT EXISTS analysis_status VARCHAR(20);
+ALTER TABLE diary_entry ADD COLUMN IF NOT EXISTS analysis_attempts INTEGER;
+ALTER TABLE diary_entry ADD COLUMN IF NOT EXISTS entry_date DATE;
+ALTER TABLE diary_entry ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6) WITH TIME ZONE;
+
+-- Listado paginado por cursor (created_at, id) y consultas por rango de fechas del usuario
+CREATE INDEX IF NOT EXISTS idx_diary_entry_user_created_id
+    ON diary_entry (user_id, created_at DESC, id DESC);
+
+-- Regla de "una entrada por día". entry_date la rellena V10__backfill_entry_date.sql en las entradas antiguas;
+-- si un usuario tenía varias el mismo día, las demás quedan en NULL a propósito (el índice único lo permite)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_diary_entry_user_entry_date
+    ON diary_entry (user_id, entry_date);
+
+CREATE TABLE IF NOT EXISTS analysis_cache (
+    content_hash  VARCHAR(64) PRIMARY KEY,
+    payload       TEXT        NOT NULL,
+    created_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,22 @@
+-- Índices para los patrones de consulta de DiaryEntryRepository y AnalysisCacheRepository.
+-- Las consultas por usuario y rango de fechas (findByUserIdAndCreatedAtBetween, findByUserIdAndDateRange,
+-- listado por cursor) ya usan idx_diary_entry_user_created_id de V1.
+
+-- findMostFrequentMainWorry: índice parcial que cubre la consulta (index-only scan por usuario,
+-- sin leer las filas completas con sus columnas TEXT). El predicado coincide con el WHERE de la consulta.
+CREATE INDEX IF NOT EXISTS idx_diary_entry_user_main_worry
+    ON diary_entry (user_id, main_worry)
+    WHERE main_worry IS NOT NULL AND main_worry <> 'Ninguna';
+
+-- findLastModifiedAtByUserId: MAX(COALESCE(updated_at, created_at)) se resuelve leyendo la primera
+-- clave del índice del usuario (versión de datos usada por el cache de recomendaciones)
+CREATE INDEX IF NOT EXISTS idx_diary_entry_user_last_modified
+    ON diary_entry (user_id, (COALESCE(updated_at, created_at)) DESC);
+
+-- findIdsByAnalysisStatus: recuperación periódica de entradas PENDING / FALLBACK en orden de id
+CREATE INDEX IF NOT EXISTS idx_diary_entry_status_id
+    ON diary_entry (analysis_status, id);
+
+-- AnalysisCacheRepository.deleteOlderThan: purga por TTL
+CREATE INDEX IF NOT EXISTS idx_analysis_cache_created_at
+    ON analysis_cache (created_at);
@@ -0,0 +1,16 @@
+-- Agregado diario por usuario para las estadísticas. Lo mantiene DailyStatsRollupService en la misma
+-- transacción que las escrituras de diary_entry; el día es el de created_at en la zona del diario.
+-- Las filas de entradas anteriores a esta tabla las genera V12__backfill_user_daily_stats.sql.
+CREATE TABLE IF NOT EXISTS user_daily_stats (
+    user_id           BIGINT  NOT NULL,
+    stat_date         DATE    NOT NULL,
+    entry_count       INTEGER NOT NULL,
+    stress_sum        INTEGER NOT NULL,
+    stress_count      INTEGER NOT NULL,
+    sleep_sum         INTEGER NOT NULL,
+    sleep_count       INTEGER NOT NULL,
+    mood_sum          INTEGER NOT NULL,
+    mood_count        INTEGER NOT NULL,
+    dominant_emotion  VARCHAR(100),
+    PRIMARY KEY (user_id, stat_date)
+);
@@ -0,0 +1,16 @@
+-- Contador de entradas por usuario y preocupación principal (main_worry), mantenido al escribir por
+-- WorryCounterService. Sustituye al GROUP BY sobre todo el historial del usuario: el top-k se lee en
+-- orden del índice y su coste no crece con el número de entradas.
+-- Los contadores de las entradas existentes los genera V13__backfill_user_worry_count.sql.
+CREATE TABLE IF NOT EXISTS user_worry_count (
+    user_id      BIGINT       NOT NULL,
+    worry        VARCHAR(500) NOT NULL,
+    entry_count  INTEGER      NOT NULL,
+    PRIMARY KEY (user_id, worry)
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_worry_count_top
+    ON user_worry_count (user_id, entry_count DESC, worry);
+
+-- Ya no se agrupan las preocupaciones sobre diary_entry
+DROP INDEX IF EXISTS idx_diary_entry_user_main_worry;
@@ -0,0 +1,9 @@
+-- Los IDs de diary_entry pasan de IDENTITY a una secuencia con incremento 50 (optimizador pooled-lo de
+-- Hibernate): cada nextval reserva un bloque de 50 IDs, lo que permite agrupar los INSERT en lotes JDBC.
+-- La importación masiva (DiaryEntryBulkInsert) reserva bloques de la misma forma.
+CREATE SEQUENCE IF NOT EXISTS diary_entry_seq INCREMENT BY 50;
+
+SELECT setval('diary_entry_seq', COALESCE((SELECT MAX(id) FROM diary_entry), 0) + 1, false);
+
+-- Sin valor por defecto: un INSERT sin ID tomaría un valor de la secuencia que ya forma parte de un bloque
+ALTER TABLE diary_entry ALTER COLUMN id DROP IDENTITY IF EXISTS;
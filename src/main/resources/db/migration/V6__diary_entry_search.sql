@@ -0,0 +1,12 @@
+-- Búsqueda de texto completo (configuración spanish) sobre la preocupación, el contenido y el resumen de IA.
+-- Columna generada: PostgreSQL la mantiene en cada INSERT/UPDATE, sin cambios en la aplicación.
+-- Pesos para el ranking: main_worry (A) > content (B) > ai_summary (C).
+ALTER TABLE diary_entry ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('spanish', coalesce(main_worry, '')), 'A') ||
+        setweight(to_tsvector('spanish', coalesce(content, '')), 'B') ||
+        setweight(to_tsvector('spanish', coalesce(ai_summary, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_diary_entry_search_vector
+    ON diary_entry USING GIN (search_vector);
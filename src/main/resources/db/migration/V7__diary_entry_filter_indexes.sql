@@ -0,0 +1,18 @@
+-- Índices del filtrado del listado (GET /api/v1/diary con emotion, worry, minStress/maxStress, minMood/maxMood).
+-- Empiezan por user_id y el campo filtrado, de modo que solo se leen las filas que cumplen el filtro; el
+-- resto de condiciones (intensidad, fechas, cursor) se aplican sobre ese conjunto ya reducido.
+
+-- Emoción, comparada sin distinguir mayúsculas; ya en orden del listado
+CREATE INDEX IF NOT EXISTS idx_diary_entry_user_emotion_created
+    ON diary_entry (user_id, lower(ai_emotion), created_at DESC, id DESC);
+
+-- Preocupación principal exacta; ya en orden del listado
+CREATE INDEX IF NOT EXISTS idx_diary_entry_user_worry_created
+    ON diary_entry (user_id, main_worry, created_at DESC, id DESC);
+
+-- Rangos de estrés y ánimo (escala 1-10)
+CREATE INDEX IF NOT EXISTS idx_diary_entry_user_stress_created
+    ON diary_entry (user_id, user_stress_level, created_at DESC);
+
+CREATE INDEX IF NOT EXISTS idx_diary_entry_user_mood_created
+    ON diary_entry (user_id, user_mood_rating, created_at DESC);
@@ -0,0 +1,33 @@
+-- Diccionario de emociones: la emoción libre que devuelve la IA ("Ansiedad", "ansioso", "nervios"...) se
+-- normaliza al escribir (EmotionDictionary) a una de estas categorías, y diary_entry guarda su id en
+-- emotion_id (SMALLINT). Los alias se comparan en minúsculas y sin tildes.
+-- Las entradas existentes las normaliza V11__normalize_emotions.sql.
+CREATE TABLE IF NOT EXISTS emotion (
+    id       SMALLINT     PRIMARY KEY,
+    code     VARCHAR(50)  NOT NULL UNIQUE,
+    label    VARCHAR(100) NOT NULL,
+    aliases  TEXT[]       NOT NULL DEFAULT '{}'
+);
+
+INSERT INTO emotion (id, code, label, aliases) VALUES
+    (1,  'alegria',     'alegría',     '{feliz,felicidad,contento,contenta,alegre,entusiasmo,euforia,satisfaccion,satisfecho,satisfecha,orgullo}'),
+    (2,  'tristeza',    'tristeza',    '{triste,melancolia,desanimo,desanimado,desanimada,pena,nostalgia,soledad,decepcion}'),
+    (3,  'ansiedad',    'ansiedad',    '{ansioso,ansiosa,nervios,nerviosismo,nervioso,nerviosa,angustia,inquietud,estres,estresado,estresada,preocupacion}'),
+    (4,  'enojo',       'enojo',       '{enojado,enojada,enfado,enfadado,enfadada,ira,rabia,molestia,irritacion,coraje}'),
+    (5,  'miedo',       'miedo',       '{temor,asustado,asustada,panico,terror,inseguridad}'),
+    (6,  'frustracion', 'frustración', '{frustrado,frustrada,impotencia}'),
+    (7,  'esperanza',   'esperanza',   '{optimismo,esperanzado,esperanzada,ilusion,motivacion,motivado,motivada}'),
+    (8,  'calma',       'calma',       '{tranquilidad,tranquilo,tranquila,paz,serenidad,relajacion,relajado,relajada}'),
+    (9,  'cansancio',   'cansancio',   '{cansado,cansada,agotamiento,agotado,agotada,fatiga}'),
+    (10, 'gratitud',    'gratitud',    '{agradecimiento,agradecido,agradecida}'),
+    (11, 'neutral',     'neutral',     '{neutro,neutra,indiferencia}')
+ON CONFLICT (id) DO NOTHING;
+
+ALTER TABLE diary_entry ADD COLUMN IF NOT EXISTS emotion_id SMALLINT REFERENCES emotion (id);
+
+-- El filtro por emoción del listado pasa a emotion_id (también cubre emotion_id IS NULL para las
+-- emociones fuera del diccionario); sustituye al índice sobre lower(ai_emotion)
+CREATE INDEX IF NOT EXISTS idx_diary_entry_user_emotion_id_created
+    ON diary_entry (user_id, emotion_id, created_at DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_diary_entry_user_emotion_created;
@@ -0,0 +1,22 @@
+-- Migración única de las palabras clave desde la tabla diary_keywords (antigua @ElementCollection) a la
+-- columna diary_entry.ai_keywords (text[]). Solo existe en bases de datos anteriores al baseline de Flyway.
+-- diary_keywords no tiene columna de orden: se agrega por ctid, el orden físico en que Hibernate insertó la
+-- lista, para conservar el orden de relevancia con que las devolvió la IA.
+-- La tabla se renombra a diary_keywords_migrated en lugar de borrarse.
+DO $$
+BEGIN
+    IF to_regclass('diary_keywords') IS NULL THEN
+        RETURN;
+    END IF;
+
+    UPDATE diary_entry e
+    SET ai_keywords = k.keywords
+    FROM (SELECT entry_id, array_agg(keyword ORDER BY ctid) AS keywords
+          FROM diary_keywords
+          WHERE keyword IS NOT NULL
+          GROUP BY entry_id) k
+    WHERE e.id = k.entry_id AND e.ai_keywords IS NULL;
+
+    ALTER TABLE diary_keywords RENAME TO diary_keywords_migrated;
+END
+$$;
@@ -0,0 +1,363 @@
+package com.emocional.diary.benchmark;
+
+import com.emocional.diary.dto.DiaryEntryRequest;
+import com.emocional.diary.dto.DiaryEntryResponse;
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import com.emocional.diary.event.DiaryEntryChangedEvent;
+import com.emocional.diary.mapper.DiaryEntryMapper;
+import com.emocional.diary.model.AnalysisStatus;
+import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.repository.DiaryEntryRepository;
+import com.emocional.diary.service.DailyStatsRollupService;
+import com.emocional.diary.service.EmotionDictionary;
+import com.emocional.diary.service.SentimentAnalysisService;
+import com.emocional.diary.service.WorryCounterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.validation.Valid;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga de POST /api/v1/diary: lanza ráfagas de check-ins concurrentes contra la aplicación completa
+ * (filtro JWT, MVC asíncrono, transacción, JPA y PostgreSQL) con Gemini sustituido por un stub de latencia fija.
+ * Compara la implementación actual, que devuelve un Mono y no retiene hilo ni conexión mientras Gemini responde,
+ * con la anterior, reproducida en BlockingCheckInController: @Transactional con analyze(...).block() dentro,
+ * que retiene un hilo de Tomcat y una conexión del pool durante toda la espera.
+ * Requiere DIARY_TEST_DB_URL (p. ej. jdbc:postgresql://localhost:5432/diary_test) y opcionalmente
+ * DIARY_TEST_DB_USERNAME / DIARY_TEST_DB_PASSWORD; trabaja en un schema temporal que borra al terminar.
+ * El resultado (tiempo de la ráfaga, check-ins por segundo y percentiles de latencia) se imprime por consola.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(CheckInConcurrencyLoadTest.BaselineConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "DIARY_TEST_DB_URL", matches = ".+")
+class CheckInConcurrencyLoadTest {
+
+    private static final String SCHEMA = "diary_load_test_" + System.nanoTime();
+    private static final byte[] JWT_KEY = "clave-de-prueba-de-carga-de-32-bytes-o-mas".getBytes(StandardCharsets.UTF_8);
+
+    // Ráfaga medida, ráfaga de calentamiento y latencia fija de cada llamada a Gemini
+    private static final int BURST = 400;
+    private static final int WARM_UP = 40;
+    private static final long GEMINI_LATENCY_MS = 300;
+
+    // Tamaños por defecto de Spring Boot, explícitos para que el resultado sea reproducible
+    private static final int TOMCAT_THREADS = 200;
+    private static final int DB_POOL_SIZE = 10;
+
+    private static final HttpServer GEMINI_STUB = startGeminiStub();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newFixedThreadPool(16))
+            .build();
+    private final AtomicLong nextUserId = new AtomicLong(1);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        String url = System.getenv("DIARY_TEST_DB_URL");
+        registry.add("spring.datasource.url", () -> url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA);
+        registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("DIARY_TEST_DB_USERNAME", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("DIARY_TEST_DB_PASSWORD", ""));
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> DB_POOL_SIZE);
+        registry.add("spring.flyway.schemas", () -> SCHEMA);
+        registry.add("server.tomcat.threads.max", () -> TOMCAT_THREADS);
+        registry.add("jwt.secret.key", () -> Base64.getEncoder().encodeToString(JWT_KEY));
+        registry.add("google.ai.gemini.api-key", () -> "test-key");
+        registry.add("diary.analysis.engine", () -> "GEMINI");
+        registry.add("diary.analysis.async.enabled", () -> false);
+        registry.add("logging.level.com.emocional.diary", () -> "WARN");
+    }
+
+    @AfterAll
+    void tearDown() {
+        GEMINI_STUB.stop(0);
+        jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void nonBlockingCheckInSustainsMoreConcurrentRequestsThanTheBlockingOne() {
+        burst("/api/v1/diary/blocking-baseline", WARM_UP);
+        BurstResult blocking = burst("/api/v1/diary/blocking-baseline", BURST);
+
+        burst("/api/v1/diary", WARM_UP);
+        BurstResult nonBlocking = burst("/api/v1/diary", BURST);
+
+        System.out.printf("Check-in: %d peticiones concurrentes, Gemini %d ms, Tomcat %d hilos, pool %d conexiones%n",
+                BURST, GEMINI_LATENCY_MS, TOMCAT_THREADS, DB_POOL_SIZE);
+        System.out.println("  bloqueante (anterior): " + blocking);
+        System.out.println("  no bloqueante (Mono):  " + nonBlocking);
+
+        assertThat(blocking.statuses()).containsOnlyKeys(HttpStatus.CREATED.value());
+        assertThat(nonBlocking.statuses()).containsOnlyKeys(HttpStatus.CREATED.value());
+        assertThat(nonBlocking.elapsed()).isLessThan(blocking.elapsed());
+    }
+
+    /**
+     * Envía a la vez una petición por usuario nuevo (la regla de una entrada por día impide repetir usuario)
+     * y espera a que terminen todas.
+     */
+    private BurstResult burst(String path, int requests) {
+        List<CompletableFuture<long[]>> responses = new ArrayList<>(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            long userId = nextUserId.getAndIncrement();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                    .header("Authorization", "Bearer " + token(userId))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofMinutes(2))
+                    .POST(HttpRequest.BodyPublishers.ofString(checkInBody(userId)))
+                    .build();
+            long sent = System.nanoTime();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> new long[]{response.statusCode(), System.nanoTime() - sent}));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<Integer, Integer> statuses = new TreeMap<>();
+        long[] latencies = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            long[] result = responses.get(i).join();
+            statuses.merge((int) result[0], 1, Integer::sum);
+            latencies[i] = result[1];
+        }
+        Arrays.sort(latencies);
+        return new BurstResult(requests, elapsed, statuses,
+                Duration.ofNanos(latencies[requests / 2]), Duration.ofNanos(latencies[(int) (requests * 0.99) - 1]));
+    }
+
+    private String checkInBody(long userId) {
+        // Texto distinto por usuario para que la cache de análisis no evite la llamada a Gemini
+        try {
+            return objectMapper.writeValueAsString(DiaryEntryRequest.builder()
+                    .entryText("Entrada de la prueba de carga del usuario " + userId
+                            + ": hoy fue un día tranquilo, con trabajo y un paseo por la tarde.")
+                    .moodRating(7)
+                    .stressLevel(3)
+                    .sleepHours(8)
+                    .mainWorry("Trabajo")
+                    .build());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String token(long userId) {
+        return Jwts.builder()
+                .claim("userId", userId)
+                .setIssuedAt(new Date())
+                .setExpiration(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .signWith(Keys.hmacShaKeyFor(JWT_KEY), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private static HttpServer startGeminiStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", CheckInConcurrencyLoadTest::handleGenerateContent);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * generateContent con latencia fija y siempre el mismo análisis.
+     */
+    private static void handleGenerateContent(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        try {
+            Thread.sleep(GEMINI_LATENCY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode analysis = mapper.createObjectNode();
+        analysis.put("emotion", "calma");
+        analysis.put("intensity", 4);
+        analysis.put("summary", "Un día tranquilo.");
+        analysis.putArray("keywords").add("trabajo").add("paseo");
+
+        ObjectNode response = mapper.createObjectNode();
+        ObjectNode candidate = response.putArray("candidates").addObject();
+        candidate.put("finishReason", "STOP");
+        candidate.putObject("content").putArray("parts").addObject().put("text", analysis.toString());
+
+        byte[] body = mapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private record BurstResult(int requests, Duration elapsed, Map<Integer, Integer> statuses, Duration p50, Duration p99) {
+
+        @Override
+        public String toString() {
+            return String.format("%d ms, %.1f check-ins/s, p50 %d ms, p99 %d ms, estados %s", elapsed.toMillis(),
+                    requests * 1000.0 / Math.max(1, elapsed.toMillis()), p50.toMillis(), p99.toMillis(), statuses);
+        }
+    }
+
+    @TestConfiguration
+    @Import({BlockingCheckInController.class, BlockingCheckInService.class})
+    static class BaselineConfig {
+
+        /**
+         * GeminiService apunta a generativelanguage.googleapis.com: las peticiones se redirigen al stub.
+         */
+        @Bean
+        WebClientCustomizer geminiStubRedirect() {
+            return builder -> builder.filter((request, next) -> next.exchange(ClientRequest.from(request)
+                    .url(UriComponentsBuilder.fromUri(request.url())
+                            .scheme("http").host("127.0.0.1").port(GEMINI_STUB.getAddress().getPort())
+                            .build(true).toUri())
+                    .build()));
+        }
+    }
+
+    /**
+     * POST /api/v1/diary tal como estaba antes de devolver un Mono: respuesta síncrona, mismo filtro JWT.
+     */
+    @RestController
+    static class BlockingCheckInController {
+
+        private final BlockingCheckInService service;
+
+        BlockingCheckInController(BlockingCheckInService service) {
+            this.service = service;
+        }
+
+        @PostMapping("/api/v1/diary/blocking-baseline")
+        public ResponseEntity<DiaryEntryResponse> createDiaryEntry(@Valid @RequestBody DiaryEntryRequest request) {
+            Long userId = (Long) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            return new ResponseEntity<>(service.createEntry(userId, request), HttpStatus.CREATED);
+        }
+    }
+
+    /**
+     * createEntry anterior, con los mismos colaboradores: la transacción (y su conexión) se abre antes de
+     * llamar a Gemini y el hilo espera la respuesta con block().
+     */
+    @Service
+    static class BlockingCheckInService {
+
+        private final DiaryEntryRepository diaryEntryRepository;
+        private final SentimentAnalysisService sentimentAnalysisService;
+        private final DiaryEntryMapper mapper;
+        private final ApplicationEventPublisher eventPublisher;
+        private final DailyStatsRollupService dailyStatsRollupService;
+        private final WorryCounterService worryCounterService;
+        private final EmotionDictionary emotionDictionary;
+        private final ZoneId diaryZoneId;
+
+        BlockingCheckInService(DiaryEntryRepository diaryEntryRepository, SentimentAnalysisService sentimentAnalysisService,
+                               DiaryEntryMapper mapper, ApplicationEventPublisher eventPublisher,
+                               DailyStatsRollupService dailyStatsRollupService, WorryCounterService worryCounterService,
+                               EmotionDictionary emotionDictionary, ZoneId diaryZoneId) {
+            this.diaryEntryRepository = diaryEntryRepository;
+            this.sentimentAnalysisService = sentimentAnalysisService;
+            this.mapper = mapper;
+            this.eventPublisher = eventPublisher;
+            this.dailyStatsRollupService = dailyStatsRollupService;
+            this.worryCounterService = worryCounterService;
+            this.emotionDictionary = emotionDictionary;
+            this.diaryZoneId = diaryZoneId;
+        }
+
+        @Transactional
+        public DiaryEntryResponse createEntry(Long userId, DiaryEntryRequest request) {
+            Instant now = Instant.now();
+            LocalDate today = now.atZone(diaryZoneId).toLocalDate();
+
+            GeminiAnalysisResponse analysis = sentimentAnalysisService.analyze(request.getEntryText()).block();
+            if (analysis == null || analysis.getEmotion() == null) {
+                throw new IllegalStateException("Análisis nulo");
+            }
+
+            DiaryEntry entry = DiaryEntry.builder()
+                    .userId(userId)
+                    .content(request.getEntryText())
+                    .userStressLevel(request.getStressLevel())
+                    .userMoodRating(request.getMoodRating())
+                    .userSleepHours(request.getSleepHours())
+                    .mainWorry(request.getMainWorry())
+                    .createdAt(now)
+                    .entryDate(today)
+                    .aiIntensity(analysis.getIntensity())
+                    .aiKeywords(analysis.getKeywords())
+                    .aiSummary(analysis.getSummary())
+                    .analysisStatus(analysis.isFallback() ? AnalysisStatus.FALLBACK : AnalysisStatus.DONE)
+                    .build();
+            emotionDictionary.applyTo(entry, analysis.getEmotion());
+
+            DiaryEntry saved = diaryEntryRepository.saveAndFlush(entry);
+            dailyStatsRollupService.refreshDayOf(saved.getUserId(), saved.getCreatedAt());
+            worryCounterService.onWorryChanged(saved.getUserId(), null, saved.getMainWorry());
+            eventPublisher.publishEvent(new DiaryEntryChangedEvent(userId, saved.getId()));
+            return mapper.toResponseDto(saved);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.emocional.diary.benchmark;
+
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import com.emocional.diary.service.LexiconEmotionClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendimiento del clasificador por léxico sobre entradas de diario de longitud típica.
+ * Ejecutar después de compilar los tests:
+ *   mvn test-compile
+ *   java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *        com.emocional.diary.benchmark.LexiconEmotionClassifierBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexiconEmotionClassifierBenchmark {
+
+    private static final String SHORT_ENTRY =
+            "Hoy me siento muy ansioso por el examen de mañana, no logro concentrarme y estoy agotado.";
+
+    private static final String LONG_ENTRY = """
+            Hoy fue un día largo. Por la mañana estaba tranquilo, desayuné con mi familia y salí a caminar,
+            pero en el trabajo todo se complicó: mi jefe me pidió entregar el informe antes de lo previsto
+            y sentí mucha presión. Me frustra no tener tiempo para hacer las cosas bien. Por la tarde hablé
+            con una amiga y eso me ayudó a calmarme un poco, aunque sigo preocupado por la reunión del lunes.
+            No estoy triste, pero sí bastante cansado. Agradezco que al menos pude descansar un rato antes
+            de dormir y espero que mañana sea un mejor día para organizarme y avanzar con esperanza.
+            """;
+
+    private LexiconEmotionClassifier classifier;
+
+    @Setup
+    public void setUp() {
+        classifier = new LexiconEmotionClassifier();
+    }
+
+    @Benchmark
+    public LexiconEmotionClassifier.LexiconClassification preClassifyShortEntry() {
+        return classifier.preClassify(SHORT_ENTRY);
+    }
+
+    @Benchmark
+    public LexiconEmotionClassifier.LexiconClassification preClassifyLongEntry() {
+        return classifier.preClassify(LONG_ENTRY);
+    }
+
+    @Benchmark
+    public GeminiAnalysisResponse analyzeLongEntry() {
+        return classifier.analyze(LONG_ENTRY);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LexiconEmotionClassifierBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
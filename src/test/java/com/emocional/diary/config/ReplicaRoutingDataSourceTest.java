@@ -0,0 +1,103 @@
+package com.emocional.diary.config;
+
+import com.emocional.diary.event.DiaryEntryChangedEvent;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final HikariDataSource replicaA = mock(HikariDataSource.class);
+    private final HikariDataSource replicaB = mock(HikariDataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection connectionA = mock(Connection.class);
+    private final Connection connectionB = mock(Connection.class);
+    private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMinutes(1));
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replicaA.getConnection()).thenReturn(connectionA);
+        when(replicaB.getConnection()).thenReturn(connectionB);
+        routing = new ReplicaRoutingDataSource(primary, List.of(replicaA, replicaB), tracker,
+                Duration.ofMillis(200), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readsAreSpreadAcrossReplicas() throws SQLException {
+        assertSame(connectionA, routing.getConnection());
+        assertSame(connectionB, routing.getConnection());
+        assertSame(connectionA, routing.getConnection());
+    }
+
+    @Test
+    void unavailableReplicaIsSkippedAndPrimaryIsTheLastResort() throws SQLException {
+        when(replicaA.getConnection()).thenThrow(new SQLException("caída"));
+        assertSame(connectionB, routing.getConnection());
+
+        when(replicaB.getConnection()).thenThrow(new SQLException("caída"));
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    void downReplicaIsNotRetriedUntilTheCooldownExpires() throws Exception {
+        when(replicaA.getConnection()).thenThrow(new SQLException("Connection is not available, request timed out"));
+        assertSame(connectionB, routing.getConnection());
+
+        // Durante el cooldown la réplica caída no se vuelve a intentar: no se paga otro connectionTimeout
+        assertSame(connectionB, routing.getConnection());
+        assertSame(connectionB, routing.getConnection());
+        verify(replicaA, times(1)).getConnection();
+
+        // Pasado el cooldown se vuelve a probar y, si se recuperó, recibe lecturas otra vez
+        Thread.sleep(300);
+        reset(replicaA);
+        when(replicaA.getConnection()).thenReturn(connectionA);
+        List<Connection> connections = List.of(routing.getConnection(), routing.getConnection());
+        assertTrue(connections.contains(connectionA), connections.toString());
+    }
+
+    @Test
+    void explicitCredentialsAreDelegatedToPrimary() throws SQLException {
+        when(primary.getConnection("lector", "secreto")).thenReturn(primaryConnection);
+        assertSame(primaryConnection, routing.getConnection("lector", "secreto"));
+    }
+
+    @Test
+    void recentWriterReadsFromPrimary() throws SQLException {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(7L, null, List.of()));
+        assertSame(connectionA, routing.getConnection());
+
+        tracker.onDiaryEntryChanged(new DiaryEntryChangedEvent(7L, 1L));
+        assertSame(primaryConnection, routing.getConnection());
+
+        // Otro usuario sigue leyendo de las réplicas
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(8L, null, List.of()));
+        assertSame(connectionB, routing.getConnection());
+    }
+}
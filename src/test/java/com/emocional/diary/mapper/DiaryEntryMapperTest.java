@@ -0,0 +1,43 @@
+package com.emocional.diary.mapper;
+
+import com.emocional.diary.dto.DiaryEntrySummaryResponse;
+import com.emocional.diary.repository.DiaryEntrySummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DiaryEntryMapperTest {
+
+    private final DiaryEntryMapper mapper = new DiaryEntryMapper();
+
+    @Test
+    void previewKeepsShortContentUntouched() {
+        DiaryEntrySummaryResponse dto = mapper.toSummaryDto(summary("Hoy fue un buen día"), 20);
+
+        assertEquals("Hoy fue un buen día", dto.getPreview());
+        assertEquals(7, dto.getMoodRating());
+        assertEquals("alegría", dto.getDetectedEmotion());
+    }
+
+    @Test
+    void previewIsCutWhenTheExtraCharacterIsPresent() {
+        // La consulta devuelve previewLength + 1 caracteres cuando el contenido es más largo
+        DiaryEntrySummaryResponse dto = mapper.toSummaryDto(summary("Hoy fue un día largo"), 11);
+
+        assertEquals("Hoy fue un…", dto.getPreview());
+    }
+
+    @Test
+    void previewCountsCodePointsLikeTheDatabase() {
+        // Dos emojis son 2 caracteres en PostgreSQL pero 4 unidades UTF-16
+        DiaryEntrySummaryResponse dto = mapper.toSummaryDto(summary("😀😀"), 2);
+
+        assertEquals("😀😀", dto.getPreview());
+    }
+
+    private static DiaryEntrySummary summary(String contentPrefix) {
+        return new DiaryEntrySummary(1L, Instant.parse("2025-10-19T10:00:00Z"), 7, 3, "alegría", contentPrefix);
+    }
+}
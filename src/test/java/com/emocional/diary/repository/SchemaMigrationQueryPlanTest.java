@@ -0,0 +1,319 @@
+package com.emocional.diary.repository;
+
+import com.emocional.diary.dto.EntryCursor;
+import com.emocional.diary.model.AnalysisStatus;
+import com.emocional.diary.model.DiaryEntry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ejecuta las migraciones de Flyway contra un PostgreSQL local y comprueba con EXPLAIN que las consultas de
+ * los repositorios usan el índice previsto. No se escriben las consultas a mano: el DataSource de la prueba
+ * intercepta el SQL que generan Hibernate y JdbcTemplate y, antes de ejecutarlo, lanza EXPLAIN sobre la
+ * misma sentencia y con los mismos parámetros.
+ * Requiere DIARY_TEST_DB_URL (p. ej. jdbc:postgresql://localhost:5432/diary_test) y opcionalmente
+ * DIARY_TEST_DB_USERNAME / DIARY_TEST_DB_PASSWORD; trabaja en un schema temporal que borra al terminar.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DiaryEntrySearchQuery.class, SchemaMigrationQueryPlanTest.ExplainConfig.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "DIARY_TEST_DB_URL", matches = ".+")
+class SchemaMigrationQueryPlanTest {
+
+    private static final String SCHEMA = "diary_plan_test_" + System.nanoTime();
+    private static final long USER_ID = 42L;
+
+    @Autowired
+    private DiaryEntryRepository diaryEntryRepository;
+
+    @Autowired
+    private UserWorryCountRepository userWorryCountRepository;
+
+    @Autowired
+    private DiaryEntrySearchQuery diaryEntrySearchQuery;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = System.getenv("DIARY_TEST_DB_URL");
+        registry.add("spring.datasource.url", () -> url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA);
+        registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("DIARY_TEST_DB_USERNAME", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("DIARY_TEST_DB_PASSWORD", ""));
+        registry.add("spring.flyway.schemas", () -> SCHEMA);
+    }
+
+    @BeforeAll
+    void seed() {
+        // 200 usuarios con un año de entradas cada uno y 60 preocupaciones distintas por usuario
+        jdbcTemplate.execute("""
+                INSERT INTO diary_entry (user_id, content, user_stress_level, user_mood_rating, user_sleep_hours,
+                                         main_worry, ai_emotion, emotion_id, ai_intensity, ai_summary, analysis_status,
+                                         analysis_attempts, entry_date, created_at, updated_at)
+                SELECT u, repeat('texto del diario ', 20), 1 + (d % 10), 1 + (d % 7), 4 + (d % 5),
+                       CASE d % 4 WHEN 0 THEN 'Ninguna' ELSE 'preocupacion ' || (d % 60) END,
+                       (ARRAY['calma', 'alegría', 'ansiedad', 'tristeza', 'enojo'])[1 + d % 5],
+                       (ARRAY[8, 1, 3, 2, 4])[1 + d % 5], 5, 'resumen',
+                       CASE WHEN d % 97 = 0 THEN 'PENDING' ELSE 'DONE' END,
+                       0, current_date - d, now() - d * interval '1 day', now() - d * interval '1 day'
+                FROM generate_series(1, 200) u, generate_series(0, 364) d
+                """);
+        jdbcTemplate.execute("""
+                INSERT INTO user_worry_count (user_id, worry, entry_count)
+                SELECT user_id, main_worry, COUNT(*) FROM diary_entry
+                WHERE main_worry <> 'Ninguna' GROUP BY user_id, main_worry
+                """);
+        jdbcTemplate.execute("VACUUM ANALYZE diary_entry");
+        jdbcTemplate.execute("VACUUM ANALYZE user_worry_count");
+    }
+
+    @AfterAll
+    void dropSchema() {
+        jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void firstPageIsReadInIndexOrder() {
+        String plan = planOf(() -> diaryEntryRepository.findFirstPageByUserId(USER_ID, PageRequest.of(0, 21)));
+        assertUsesIndex(plan, "idx_diary_entry_user_created_id");
+        assertNoSort(plan);
+    }
+
+    @Test
+    void keysetPageIsReadInIndexOrder() {
+        String plan = planOf(() -> diaryEntryRepository.findPageByUserIdAfter(
+                USER_ID, Instant.now().minus(Duration.ofDays(30)), Long.MAX_VALUE, PageRequest.of(0, 21)));
+        assertUsesIndex(plan, "idx_diary_entry_user_created_id");
+        assertNoSort(plan);
+    }
+
+    @Test
+    void summaryProjectionPageIsReadInIndexOrder() {
+        String plan = planOf(() -> diaryEntryRepository.findSummaryPageByUserIdAfter(
+                USER_ID, Instant.now().minus(Duration.ofDays(30)), Long.MAX_VALUE, 160, PageRequest.of(0, 21)));
+        assertUsesIndex(plan, "idx_diary_entry_user_created_id");
+        assertNoSort(plan);
+    }
+
+    @Test
+    void createdAtRangeQueryUsesIndex() {
+        Instant now = Instant.now();
+        String plan = planOf(() -> diaryEntryRepository.findByUserIdAndCreatedAtBetween(
+                USER_ID, now.minus(Duration.ofDays(14)), now));
+        assertUsesIndex(plan, "idx_diary_entry_user_created_id");
+    }
+
+    @Test
+    void emotionFilterUsesEmotionIndex() {
+        Specification<DiaryEntry> spec = Specification.where(DiaryEntrySpecifications.ownedBy(USER_ID))
+                .and(DiaryEntrySpecifications.emotionIdIs((short) 8));
+        String plan = planOf(() -> diaryEntryRepository.findFilteredPage(spec, 21));
+        assertUsesIndex(plan, "idx_diary_entry_user_emotion_id_created");
+        assertNoSort(plan);
+    }
+
+    @Test
+    void worryFilterWithCursorUsesWorryIndex() {
+        Specification<DiaryEntry> spec = Specification.where(DiaryEntrySpecifications.ownedBy(USER_ID))
+                .and(DiaryEntrySpecifications.worryIs("preocupacion 3"))
+                .and(DiaryEntrySpecifications.after(new EntryCursor(Instant.now().minus(Duration.ofDays(30)), Long.MAX_VALUE)));
+        String plan = planOf(() -> diaryEntryRepository.findFilteredSummaryPage(spec, 160, 21));
+        assertUsesIndex(plan, "idx_diary_entry_user_worry_created");
+        assertNoSort(plan);
+    }
+
+    @Test
+    void lastModifiedQueryUsesExpressionIndex() {
+        String plan = planOf(() -> diaryEntryRepository.findLastModifiedAtByUserId(USER_ID));
+        assertUsesIndex(plan, "idx_diary_entry_user_last_modified");
+    }
+
+    @Test
+    void pendingAnalysisRecoveryQueryUsesStatusIndex() {
+        String plan = planOf(() -> diaryEntryRepository.findIdsByAnalysisStatus(AnalysisStatus.PENDING, 5, PageRequest.of(0, 50)));
+        assertUsesIndex(plan, "idx_diary_entry_status_id");
+        assertNoSort(plan);
+    }
+
+    @Test
+    void oneEntryPerDayCheckUsesUniqueIndex() {
+        String plan = planOf(() -> diaryEntryRepository.existsByUserIdAndEntryDate(USER_ID, LocalDate.now()));
+        assertUsesIndex(plan, "uk_diary_entry_user_entry_date");
+    }
+
+    @Test
+    void topWorriesAreReadInIndexOrder() {
+        String plan = planOf(() -> userWorryCountRepository.findTopByUserId(USER_ID, PageRequest.of(0, 5)));
+        assertUsesIndex(plan, "idx_user_worry_count_top");
+        assertNoSort(plan);
+    }
+
+    @Test
+    void fullTextSearchUsesGinIndex() {
+        String plan = planOf(() -> diaryEntrySearchQuery.search(USER_ID, "trabajo examen", null, null, 20));
+        assertUsesIndex(plan, "idx_diary_entry_search_vector");
+    }
+
+    /**
+     * Ejecuta la consulta del repositorio y devuelve el plan de las sentencias que llegaron a la base de datos.
+     */
+    private static String planOf(Runnable query) {
+        List<String> plans = ExplainingDataSource.capture(query);
+        assertFalse(plans.isEmpty(), "La consulta no llegó a la base de datos");
+        return String.join("\n", plans);
+    }
+
+    private static void assertUsesIndex(String plan, String index) {
+        assertTrue(plan.contains(index), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    private static void assertNoSort(String plan) {
+        assertFalse(plan.contains("Sort"), plan);
+    }
+
+    @TestConfiguration
+    static class ExplainConfig {
+
+        @Bean
+        static BeanPostProcessor explainingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof ExplainingDataSource)
+                            ? new ExplainingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * DataSource que, mientras hay una captura activa, ejecuta EXPLAIN de cada consulta preparada con los mismos
+     * parámetros antes de ejecutarla.
+     */
+    static class ExplainingDataSource extends DelegatingDataSource {
+
+        private static final List<String> PLANS = new CopyOnWriteArrayList<>();
+        private static volatile boolean capturing;
+
+        ExplainingDataSource(DataSource target) {
+            super(target);
+        }
+
+        static List<String> capture(Runnable query) {
+            PLANS.clear();
+            capturing = true;
+            try {
+                query.run();
+            } finally {
+                capturing = false;
+            }
+            return List.copyOf(PLANS);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return explaining(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return explaining(super.getConnection(username, password));
+        }
+
+        private static Connection explaining(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(ExplainingDataSource.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (method.getName().equals("prepareStatement") && args[0] instanceof String sql) {
+                            return explaining(connection, (PreparedStatement) result, sql);
+                        }
+                        return result;
+                    });
+        }
+
+        private static PreparedStatement explaining(Connection connection, PreparedStatement statement, String sql) {
+            // Llamadas setXxx(índice, valor, ...) para repetirlas sobre la sentencia EXPLAIN
+            List<Object[]> parameters = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(ExplainingDataSource.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        if (method.getName().startsWith("set") && method.getParameterCount() >= 2
+                                && method.getParameterTypes()[0] == int.class) {
+                            parameters.add(new Object[]{method, args});
+                        } else if (method.getName().equals("clearParameters")) {
+                            parameters.clear();
+                        } else if (capturing && method.getName().equals("executeQuery") && method.getParameterCount() == 0
+                                && isQuery(sql)) {
+                            PLANS.add(explain(connection, sql, parameters));
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static boolean isQuery(String sql) {
+            String start = sql.stripLeading().toLowerCase(Locale.ROOT);
+            return start.startsWith("select") || start.startsWith("with");
+        }
+
+        private static String explain(Connection connection, String sql, List<Object[]> parameters) throws Exception {
+            StringBuilder plan = new StringBuilder();
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (Object[] call : parameters) {
+                    ((Method) call[0]).invoke(explain, (Object[]) call[1]);
+                }
+                try (ResultSet rs = explain.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+            }
+            return plan.toString();
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import com.emocional.diary.exception.ExternalServiceException;
+import com.emocional.diary.model.AnalysisStatus;
+import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.repository.DiaryEntryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba la máquina de estados del worker con un repositorio en memoria y Gemini simulado.
+ * Las transacciones son no-ops: las entradas del mapa son los mismos objetos que modifica el worker.
+ */
+class DiaryAnalysisWorkerTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final Map<Long, DiaryEntry> entries = new ConcurrentHashMap<>();
+    private final DiaryEntryRepository repository = mock(DiaryEntryRepository.class);
+    private final SentimentAnalysisService sentimentAnalysisService = mock(SentimentAnalysisService.class);
+    private final DailyStatsRollupService dailyStatsRollupService = mock(DailyStatsRollupService.class);
+
+    private ThreadPoolTaskExecutor executor;
+    private DiaryAnalysisWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(entries.get(invocation.<Long>getArgument(0))));
+        when(repository.saveAndFlush(any(DiaryEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(sentimentAnalysisService.analyzeLocally(anyString())).thenAnswer(invocation -> analysis("local", invocation.getArgument(0)));
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+
+        worker = new DiaryAnalysisWorker(repository, sentimentAnalysisService, dailyStatsRollupService,
+                new EmotionDictionary(List.of()), executor, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(worker, "maxRetries", 0);
+        ReflectionTestUtils.setField(worker, "retryBackoffMs", 1L);
+        ReflectionTestUtils.setField(worker, "maxAttempts", MAX_ATTEMPTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void pendingEntryIsAnalyzedAndMarkedDone() {
+        DiaryEntry entry = entry(1L, "hoy fue un buen día", AnalysisStatus.PENDING);
+        when(sentimentAnalysisService.analyzeWithGemini("hoy fue un buen día"))
+                .thenReturn(Mono.just(analysis("alegría", "hoy fue un buen día")));
+
+        worker.submit(1L);
+        awaitIdle();
+
+        assertEquals(AnalysisStatus.DONE, entry.getAnalysisStatus());
+        assertEquals("alegría", entry.getAiEmotion());
+        assertEquals("Resumen de hoy fue un buen día", entry.getAiSummary());
+        assertEquals(0, entry.getAnalysisAttempts());
+        verify(dailyStatsRollupService).refreshDayOf(1L, entry.getCreatedAt());
+    }
+
+    @Test
+    void pendingEntryFallsBackToLocalAnalysisAfterMaxAttempts() {
+        DiaryEntry entry = entry(1L, "texto", AnalysisStatus.PENDING);
+        when(sentimentAnalysisService.analyzeWithGemini("texto"))
+                .thenReturn(Mono.error(new ExternalServiceException("Gemini no disponible")));
+
+        for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+            worker.submit(1L);
+            awaitIdle();
+            assertEquals(AnalysisStatus.PENDING, entry.getAnalysisStatus());
+            assertEquals(attempt, entry.getAnalysisAttempts());
+        }
+
+        worker.submit(1L);
+        awaitIdle();
+
+        assertEquals(AnalysisStatus.FALLBACK, entry.getAnalysisStatus());
+        assertEquals(0, entry.getAnalysisAttempts());
+        assertEquals("local", entry.getAiEmotion());
+    }
+
+    @Test
+    void fallbackEntryThatKeepsFailingEndsFailedWithItsLocalResult() {
+        DiaryEntry entry = entry(1L, "texto", AnalysisStatus.FALLBACK);
+        entry.setAiEmotion("local");
+        when(sentimentAnalysisService.analyzeWithGemini("texto"))
+                .thenReturn(Mono.error(new ExternalServiceException("Gemini no disponible")));
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            worker.submit(1L);
+            awaitIdle();
+        }
+
+        assertEquals(AnalysisStatus.FAILED, entry.getAnalysisStatus());
+        assertEquals(MAX_ATTEMPTS, entry.getAnalysisAttempts());
+        assertEquals("local", entry.getAiEmotion());
+
+        // Una entrada FAILED ya no se vuelve a analizar
+        worker.submit(1L);
+        awaitIdle();
+        verify(sentimentAnalysisService, times(MAX_ATTEMPTS)).analyzeWithGemini("texto");
+    }
+
+    @Test
+    void concurrentSubmitsOfTheSameEntryRunOneAnalysis() throws Exception {
+        DiaryEntry entry = entry(1L, "texto", AnalysisStatus.PENDING);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(sentimentAnalysisService.analyzeWithGemini("texto")).thenReturn(Mono.fromCallable(() -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return analysis("calma", "texto");
+        }));
+
+        worker.submit(1L);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            worker.submit(1L);
+        }
+        release.countDown();
+        awaitIdle();
+
+        assertEquals(AnalysisStatus.DONE, entry.getAnalysisStatus());
+        verify(sentimentAnalysisService, times(1)).analyzeWithGemini("texto");
+    }
+
+    @Test
+    void entryEditedDuringAnalysisIsAnalyzedAgainWithTheNewContent() throws Exception {
+        DiaryEntry entry = entry(1L, "antes", AnalysisStatus.PENDING);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(sentimentAnalysisService.analyzeWithGemini("antes")).thenReturn(Mono.fromCallable(() -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return analysis("tristeza", "antes");
+        }));
+        when(sentimentAnalysisService.analyzeWithGemini("después"))
+                .thenReturn(Mono.just(analysis("alegría", "después")));
+
+        worker.submit(1L);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // updateEntry cambia el contenido y publica un nuevo submit mientras el análisis anterior sigue en curso
+        entry.setContent("después");
+        worker.submit(1L);
+        release.countDown();
+        awaitIdle();
+
+        assertEquals(AnalysisStatus.DONE, entry.getAnalysisStatus());
+        assertEquals("alegría", entry.getAiEmotion());
+        assertEquals("Resumen de después", entry.getAiSummary());
+    }
+
+    @Test
+    void staleResultIsDiscardedAndEntryRequeuedEvenWithoutANewSubmit() throws Exception {
+        DiaryEntry entry = entry(1L, "antes", AnalysisStatus.PENDING);
+        when(sentimentAnalysisService.analyzeWithGemini("antes")).thenReturn(Mono.fromCallable(() -> {
+            // El contenido cambia entre la lectura y la escritura del resultado
+            entry.setContent("después");
+            return analysis("tristeza", "antes");
+        }));
+        when(sentimentAnalysisService.analyzeWithGemini("después"))
+                .thenReturn(Mono.just(analysis("alegría", "después")));
+
+        worker.submit(1L);
+        awaitIdle();
+
+        assertEquals(AnalysisStatus.DONE, entry.getAnalysisStatus());
+        assertEquals("alegría", entry.getAiEmotion());
+    }
+
+    private DiaryEntry entry(Long id, String content, AnalysisStatus status) {
+        DiaryEntry entry = DiaryEntry.builder()
+                .id(id)
+                .userId(1L)
+                .content(content)
+                .analysisStatus(status)
+                .createdAt(Instant.parse("2024-05-01T10:00:00Z"))
+                .build();
+        entries.put(id, entry);
+        return entry;
+    }
+
+    private static GeminiAnalysisResponse analysis(String emotion, String content) {
+        GeminiAnalysisResponse response = new GeminiAnalysisResponse();
+        response.setEmotion(emotion);
+        response.setIntensity(5);
+        response.setSummary("Resumen de " + content);
+        response.setKeywords(List.of("a", "b"));
+        return response;
+    }
+
+    /**
+     * Espera a que no quede ninguna entrada en curso ni ninguna tarea en el pool.
+     */
+    private void awaitIdle() {
+        Map<?, ?> inFlight = (Map<?, ?>) ReflectionTestUtils.getField(worker, "inFlight");
+        await(() -> inFlight.isEmpty() && executor.getActiveCount() == 0
+                && executor.getThreadPoolExecutor().getQueue().isEmpty());
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "El worker no terminó a tiempo");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
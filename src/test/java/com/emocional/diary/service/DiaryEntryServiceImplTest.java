@@ -0,0 +1,131 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.DiaryEntryRequest;
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import com.emocional.diary.mapper.DiaryEntryMapper;
+import com.emocional.diary.model.AnalysisEngine;
+import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.repository.DiaryEntryRepository;
+import com.emocional.diary.repository.DiaryEntrySearchQuery;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba la traducción de las violaciones de integridad al guardar una entrada nueva: solo la del índice
+ * único (user_id, entry_date) es un doble check-in; cualquier otra se propaga tal cual.
+ */
+class DiaryEntryServiceImplTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final DiaryEntryRepository repository = mock(DiaryEntryRepository.class);
+    private final SentimentAnalysisService sentimentAnalysisService = mock(SentimentAnalysisService.class);
+    private final DailyStatsRollupService dailyStatsRollupService = mock(DailyStatsRollupService.class);
+    private final WorryCounterService worryCounterService = mock(WorryCounterService.class);
+    private final DiaryEntryServiceImpl service = new DiaryEntryServiceImpl(repository, mock(DiaryEntrySearchQuery.class),
+            sentimentAnalysisService, new DiaryEntryMapper(), mock(ApplicationEventPublisher.class), dailyStatsRollupService,
+            worryCounterService, new EmotionDictionary(List.of()),
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), ZoneId.of("Europe/Madrid"));
+
+    @Test
+    void oneEntryPerDayViolationBecomesBusinessErrorWhenSavingPending() {
+        ReflectionTestUtils.setField(service, "asyncAnalysisEnabled", true);
+        failInsertWith(violationOf("uk_diary_entry_user_entry_date"));
+
+        assertThatThrownBy(() -> service.createEntry(USER_ID, request(null)).block(Duration.ofSeconds(5)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Solo se permite una entrada de diario por día.");
+        verifyNoInteractions(dailyStatsRollupService, worryCounterService);
+    }
+
+    @Test
+    void oneEntryPerDayViolationBecomesBusinessErrorWhenSavingAnalyzed() {
+        routeToLocalAnalysis();
+        failInsertWith(violationOf("UK_DIARY_ENTRY_USER_ENTRY_DATE"));
+
+        assertThatThrownBy(() -> service.createEntry(USER_ID, request(AnalysisEngine.LEXICON)).block(Duration.ofSeconds(5)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Solo se permite una entrada de diario por día.");
+    }
+
+    @Test
+    void otherConstraintViolationPropagatesUnchangedWhenSavingPending() {
+        ReflectionTestUtils.setField(service, "asyncAnalysisEnabled", true);
+        DataIntegrityViolationException violation = violationOf("fk_diary_entry_emotion");
+        failInsertWith(violation);
+
+        assertThatThrownBy(() -> service.createEntry(USER_ID, request(null)).block(Duration.ofSeconds(5)))
+                .isSameAs(violation);
+    }
+
+    @Test
+    void otherConstraintViolationPropagatesUnchangedWhenSavingAnalyzed() {
+        routeToLocalAnalysis();
+        DataIntegrityViolationException violation = violationOf("fk_diary_entry_emotion");
+        failInsertWith(violation);
+
+        assertThatThrownBy(() -> service.createEntry(USER_ID, request(AnalysisEngine.LEXICON)).block(Duration.ofSeconds(5)))
+                .isSameAs(violation);
+    }
+
+    @Test
+    void violationWithoutConstraintNamePropagatesUnchanged() {
+        ReflectionTestUtils.setField(service, "asyncAnalysisEnabled", true);
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("not-null",
+                new SQLException("null value in column \"content\""));
+        failInsertWith(violation);
+
+        assertThatThrownBy(() -> service.createEntry(USER_ID, request(null)).block(Duration.ofSeconds(5)))
+                .isSameAs(violation);
+    }
+
+    private void failInsertWith(DataIntegrityViolationException violation) {
+        when(repository.existsByUserIdAndEntryDate(anyLong(), any())).thenReturn(false);
+        when(repository.saveAndFlush(any(DiaryEntry.class))).thenThrow(violation);
+    }
+
+    private void routeToLocalAnalysis() {
+        GeminiAnalysisResponse local = new GeminiAnalysisResponse();
+        local.setEmotion("calma");
+        local.setIntensity(3);
+        local.setSummary("Resumen");
+        local.setKeywords(List.of("a"));
+        when(sentimentAnalysisService.analyzeLocallyIfRouted(any(), any())).thenReturn(Optional.of(local));
+    }
+
+    private static DataIntegrityViolationException violationOf(String constraintName) {
+        // Hibernate envuelve la SQLException y Spring la traduce, como al hacer flush contra PostgreSQL
+        ConstraintViolationException cause = new ConstraintViolationException(
+                "could not execute statement", new SQLException("duplicate key value", "23505"), constraintName);
+        return new DataIntegrityViolationException("could not execute statement", cause);
+    }
+
+    private static DiaryEntryRequest request(AnalysisEngine engine) {
+        return DiaryEntryRequest.builder()
+                .entryText("Hoy ha sido un día tranquilo, con tiempo para pasear y leer un rato por la tarde.")
+                .moodRating(7)
+                .stressLevel(3)
+                .sleepHours(8)
+                .mainWorry("Trabajo")
+                .analysisEngine(engine)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.DiaryImportRecord;
+import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.model.ExportFormat;
+import com.emocional.diary.repository.DiaryEntryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiaryExportServiceTest {
+
+    private final DiaryEntryRepository repository = mock(DiaryEntryRepository.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final DiaryExportService service = new DiaryExportService(repository, entityManager, objectMapper,
+            mock(PlatformTransactionManager.class));
+
+    private final DiaryEntry first = DiaryEntry.builder()
+            .id(1L).userId(7L).content("Hoy, un \"buen\" día").createdAt(Instant.parse("2024-01-01T12:00:00Z"))
+            .userMoodRating(8).userStressLevel(3).userSleepHours(7).mainWorry("Trabajo")
+            .aiEmotion("alegría").aiIntensity(6).aiSummary("Resumen").aiKeywords(List.of("trabajo", "familia"))
+            .build();
+    private final DiaryEntry second = DiaryEntry.builder()
+            .id(2L).userId(7L).content("=SUMA(A1)").createdAt(Instant.parse("2024-01-02T12:00:00Z"))
+            .userMoodRating(4).userStressLevel(7).userSleepHours(5)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        when(repository.streamAllByUserId(7L)).thenAnswer(invocation -> Stream.of(first, second));
+    }
+
+    @Test
+    void ndjsonLinesCanBeImportedBackAndEntitiesAreDetached() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = service.export(7L, ExportFormat.NDJSON, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, exported);
+        assertEquals(2, lines.size());
+        DiaryImportRecord record = objectMapper.readerFor(DiaryImportRecord.class).readValue(lines.get(0));
+        assertEquals("Hoy, un \"buen\" día", record.getEntryText());
+        assertEquals(Instant.parse("2024-01-01T12:00:00Z"), record.getCreatedAt());
+        assertEquals(List.of("trabajo", "familia"), record.getKeyWords());
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    void csvQuotesTextAndNeutralizesFormulas() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(7L, ExportFormat.CSV, out);
+
+        String[] rows = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, rows.length);
+        assertEquals("2024-01-01T12:00:00Z,\"Hoy, un \"\"buen\"\" día\",8,3,7,Trabajo,alegría,6,Resumen,trabajo;familia", rows[1]);
+        assertEquals("2024-01-02T12:00:00Z,'=SUMA(A1),4,7,5,,,,,", rows[2]);
+    }
+}
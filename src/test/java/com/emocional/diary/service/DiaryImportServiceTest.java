@@ -0,0 +1,125 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.ImportResultResponse;
+import com.emocional.diary.model.AnalysisStatus;
+import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.model.Emotion;
+import com.emocional.diary.model.ImportAnalysisMode;
+import com.emocional.diary.repository.DiaryEntryBulkInsert;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiaryImportServiceTest {
+
+    private final DiaryEntryBulkInsert bulkInsert = mock(DiaryEntryBulkInsert.class);
+    private final DailyStatsRollupService rollupService = mock(DailyStatsRollupService.class);
+    private final WorryCounterService worryCounterService = mock(WorryCounterService.class);
+    private final List<List<DiaryEntry>> batches = new ArrayList<>();
+    private DiaryImportService service;
+
+    @BeforeEach
+    void setUp() {
+        EmotionDictionary emotionDictionary = new EmotionDictionary(List.of(
+                Emotion.builder().id((short) 8).code("calma").label("calma").aliases(List.of("tranquilidad")).build()));
+        service = new DiaryImportService(bulkInsert, rollupService, worryCounterService, emotionDictionary,
+                mock(ApplicationEventPublisher.class),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper().findAndRegisterModules(),
+                mock(PlatformTransactionManager.class),
+                ZoneId.of("America/Bogota"));
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+
+        // Inserta todo salvo las entradas con estrés 10, que simulan un día ya ocupado
+        when(bulkInsert.insert(anyList())).thenAnswer(invocation -> {
+            List<DiaryEntry> batch = new ArrayList<>(invocation.getArgument(0));
+            batches.add(batch);
+            return batch.stream()
+                    .filter(entry -> entry.getUserStressLevel() != 10)
+                    .map(entry -> new DiaryEntryBulkInsert.InsertedEntry(entry.getCreatedAt(), entry.getMainWorry()))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    void importsInBatchesAndCountsDuplicatesAndInvalidLines() throws Exception {
+        String ndjson = String.join("\n",
+                line("2024-01-01T12:00:00Z", 5),
+                "",
+                line("2024-01-02T12:00:00Z", 10),
+                "{no es json",
+                "{\"entryText\":\"\",\"createdAt\":\"2024-01-03T12:00:00Z\",\"moodRating\":5,\"stressLevel\":5,\"sleepHours\":7}",
+                line("2024-01-04T12:00:00Z", 3));
+
+        ImportResultResponse result = service.importNdjson(7L, stream(ndjson), ImportAnalysisMode.SKIP);
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getDuplicates());
+        assertEquals(2, result.getInvalid());
+        assertEquals(2, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("línea 4:"));
+        assertTrue(result.getErrors().get(1).startsWith("línea 5:"));
+        assertEquals(List.of(2, 1), batches.stream().map(List::size).toList());
+        verify(rollupService).refreshDaysBetween(eq(7L), eq(Instant.parse("2024-01-01T12:00:00Z")), any());
+        verify(worryCounterService, times(2)).onEntriesAdded(7L, List.of("Trabajo"));
+        assertEquals((short) 8, batches.get(0).get(0).getEmotionId());
+    }
+
+    @Test
+    void entryDateUsesTheDiaryZoneAndDeferLeavesAnalysisPending() throws Exception {
+        // 02:00 UTC es todavía el día anterior en Bogotá (UTC-5)
+        service.importNdjson(7L, stream(line("2024-03-10T02:00:00Z", 4)), ImportAnalysisMode.DEFER);
+
+        DiaryEntry entry = batches.get(0).get(0);
+        assertEquals(LocalDate.of(2024, 3, 9), entry.getEntryDate());
+        assertEquals(AnalysisStatus.PENDING, entry.getAnalysisStatus());
+        assertNull(entry.getAiEmotion());
+        assertNull(entry.getEmotionId());
+    }
+
+    @Test
+    void largeImportsAreSplitIntoFullBatches() throws Exception {
+        String ndjson = IntStream.range(0, 5)
+                .mapToObj(i -> line(Instant.parse("2024-01-01T12:00:00Z").plusSeconds(86_400L * i).toString(), 4))
+                .collect(Collectors.joining("\n"));
+
+        ImportResultResponse result = service.importNdjson(7L, stream(ndjson), ImportAnalysisMode.SKIP);
+
+        assertEquals(5, result.getImported());
+        assertEquals(List.of(2, 2, 1), batches.stream().map(List::size).toList());
+    }
+
+    private static String line(String createdAt, int stress) {
+        return "{\"entryText\":\"Texto importado\",\"createdAt\":\"" + createdAt + "\",\"moodRating\":6,"
+                + "\"stressLevel\":" + stress + ",\"sleepHours\":7,\"mainWorry\":\"Trabajo\",\"detectedEmotion\":\"calma\"}";
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,48 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.model.DiaryEntry;
+import com.emocional.diary.model.Emotion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmotionDictionaryTest {
+
+    private final EmotionDictionary dictionary = new EmotionDictionary(List.of(
+            Emotion.builder().id((short) 3).code("ansiedad").label("ansiedad")
+                    .aliases(List.of("ansioso", "nervios", "estres")).build(),
+            Emotion.builder().id((short) 6).code("frustracion").label("frustración")
+                    .aliases(List.of("frustrado", "impotencia")).build()));
+
+    @Test
+    void caseAccentsAndPunctuationAreFolded() {
+        assertEquals((short) 6, dictionary.resolve("Frustración").orElseThrow().getId());
+        assertEquals((short) 6, dictionary.resolve("  FRUSTRACION. ").orElseThrow().getId());
+        assertEquals((short) 3, dictionary.resolve("Estrés").orElseThrow().getId());
+    }
+
+    @Test
+    void synonymsResolveToTheCanonicalLabel() {
+        DiaryEntry entry = new DiaryEntry();
+
+        dictionary.applyTo(entry, "Ansioso");
+
+        assertEquals("ansiedad", entry.getAiEmotion());
+        assertEquals((short) 3, entry.getEmotionId());
+    }
+
+    @Test
+    void unknownEmotionsKeepTheirTextWithoutId() {
+        DiaryEntry entry = new DiaryEntry();
+
+        dictionary.applyTo(entry, " nostalgia agridulce ");
+
+        assertEquals("nostalgia agridulce", entry.getAiEmotion());
+        assertNull(entry.getEmotionId());
+        assertTrue(dictionary.resolve(null).isEmpty());
+    }
+}
@@ -0,0 +1,207 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba el micro-batching contra un stub local del endpoint generateContent de Gemini.
+ * El stub responde con la emoción "e-" + texto, de modo que se puede verificar que cada
+ * resultado llega al Mono correcto aunque el array venga desordenado.
+ */
+class GeminiBatchingAnalyzerTest {
+
+    private static final Pattern BATCH_TEXT = Pattern.compile("TEXTO (\\d+):\\n([^\\n]*)");
+    private static final String SINGLE_MARKER = "TEXTO DEL DIARIO A ANALIZAR:\n";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicBoolean failBatches = new AtomicBoolean();
+    private final AtomicInteger responseDelayMs = new AtomicInteger();
+
+    private HttpServer server;
+    private GeminiBatchingAnalyzer batchingAnalyzer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handleGenerateContent);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .build();
+        GeminiService geminiService = new GeminiService(webClient, objectMapper, new GeminiRequestHedger(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(geminiService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(geminiService, "model", "gemini-test");
+        ReflectionTestUtils.setField(geminiService, "analysisDeadlineMs", 5000L);
+        ReflectionTestUtils.setField(geminiService, "batchDeadlineMs", 5000L);
+
+        batchingAnalyzer = new GeminiBatchingAnalyzer(geminiService);
+        ReflectionTestUtils.setField(batchingAnalyzer, "enabled", true);
+        ReflectionTestUtils.setField(batchingAnalyzer, "maxBatchSize", 3);
+        ReflectionTestUtils.setField(batchingAnalyzer, "windowMs", 500L);
+        ReflectionTestUtils.setField(batchingAnalyzer, "maxConcurrentBatches", 2);
+        ReflectionTestUtils.setField(batchingAnalyzer, "resultTimeoutMs", 10000L);
+        batchingAnalyzer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchingAnalyzer.stop();
+        server.stop(0);
+    }
+
+    @Test
+    void concurrentAnalysesAreSentInOneCallAndRoutedBackInOrder() {
+        var results = Mono.zip(
+                batchingAnalyzer.submit("uno"),
+                batchingAnalyzer.submit("dos"),
+                batchingAnalyzer.submit("tres")
+        ).block(Duration.ofSeconds(5));
+
+        assertThat(results).isNotNull();
+        assertThat(results.getT1().getEmotion()).isEqualTo("e-uno");
+        assertThat(results.getT2().getEmotion()).isEqualTo("e-dos");
+        assertThat(results.getT3().getEmotion()).isEqualTo("e-tres");
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void unparseableBatchFallsBackToSingleCalls() {
+        failBatches.set(true);
+
+        var results = Mono.zip(
+                batchingAnalyzer.submit("uno"),
+                batchingAnalyzer.submit("dos"),
+                batchingAnalyzer.submit("tres")
+        ).block(Duration.ofSeconds(5));
+
+        assertThat(results).isNotNull();
+        assertThat(results.getT1().getEmotion()).isEqualTo("e-uno");
+        assertThat(results.getT2().getEmotion()).isEqualTo("e-dos");
+        assertThat(results.getT3().getEmotion()).isEqualTo("e-tres");
+        // Una llamada por lotes fallida más una llamada individual por texto
+        assertThat(requests.get()).isEqualTo(4);
+    }
+
+    @Test
+    void singlePendingAnalysisUsesRegularCall() {
+        GeminiAnalysisResponse result = batchingAnalyzer.submit("solo").block(Duration.ofSeconds(5));
+
+        assertThat(result).isNotNull();
+        assertThat(result.getEmotion()).isEqualTo("e-solo");
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void burstLargerThanInFlightCapacityIsQueuedInsteadOfOverflowing() {
+        // Dos lotes lentos ocupan los 2 huecos de flatMap; la ráfaga llega mientras no hay demanda
+        responseDelayMs.set(1500);
+        Mono<GeminiAnalysisResponse> first = batchingAnalyzer.submit("a").cache();
+        first.subscribe();
+        sleep(700);
+        Mono<GeminiAnalysisResponse> second = batchingAnalyzer.submit("b").cache();
+        second.subscribe();
+        sleep(700);
+
+        // Con lotes de 3 y 2 lotes en curso, 20 envíos simultáneos superan de sobra la capacidad
+        List<String> emotions = Flux.range(0, 20)
+                .flatMap(i -> batchingAnalyzer.submit("t" + i).subscribeOn(Schedulers.parallel()), 20)
+                .map(GeminiAnalysisResponse::getEmotion)
+                .collectList()
+                .block(Duration.ofSeconds(20));
+
+        assertThat(emotions).hasSize(20);
+        assertThat(emotions).allMatch(emotion -> emotion.startsWith("e-t"));
+        assertThat(first.block(Duration.ofSeconds(5)).getEmotion()).isEqualTo("e-a");
+        assertThat(second.block(Duration.ofSeconds(5)).getEmotion()).isEqualTo("e-b");
+
+        // El pipeline sigue vivo después de la ráfaga
+        responseDelayMs.set(0);
+        GeminiAnalysisResponse after = batchingAnalyzer.submit("despues").block(Duration.ofSeconds(5));
+        assertThat(after).isNotNull();
+        assertThat(after.getEmotion()).isEqualTo("e-despues");
+    }
+
+    private void handleGenerateContent(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        sleep(responseDelayMs.get());
+        String prompt = objectMapper.readTree(exchange.getRequestBody())
+                .path("contents").path(0).path("parts").path(0).path("text").asText();
+
+        String modelText;
+        if (prompt.contains("MODO POR LOTES")) {
+            if (failBatches.get()) {
+                modelText = "esto no es JSON";
+            } else {
+                ArrayNode array = objectMapper.createArrayNode();
+                Matcher matcher = BATCH_TEXT.matcher(prompt);
+                while (matcher.find()) {
+                    ObjectNode item = analysis(matcher.group(2));
+                    item.put("index", Integer.parseInt(matcher.group(1)));
+                    // Se insertan al principio para devolver el array en orden inverso
+                    array.insert(0, item);
+                }
+                modelText = "```json\n" + array + "\n```";
+            }
+        } else {
+            String content = prompt.substring(prompt.indexOf(SINGLE_MARKER) + SINGLE_MARKER.length()).trim();
+            modelText = analysis(content).toString();
+        }
+
+        ObjectNode response = objectMapper.createObjectNode();
+        ObjectNode candidate = response.putArray("candidates").addObject();
+        candidate.put("finishReason", "STOP");
+        candidate.putObject("content").putArray("parts").addObject().put("text", modelText);
+
+        byte[] body = objectMapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ObjectNode analysis(String content) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("emotion", "e-" + content);
+        node.put("intensity", 5);
+        node.put("summary", "Resumen de " + content);
+        node.putArray("keywords").add("a").add("b");
+        return node;
+    }
+}
@@ -0,0 +1,122 @@
+package com.emocional.diary.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Prueba las peticiones "hedged" con llamadas simuladas: tras unas pocas muestras rápidas el umbral
+ * queda en min-delay-ms (200 ms), así que una llamada más lenta que eso dispara el respaldo.
+ */
+class GeminiRequestHedgerTest {
+
+    private static final long HEDGE_DELAY_MS = 200;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private GeminiRequestHedger hedger;
+
+    @BeforeEach
+    void setUp() {
+        hedger = new GeminiRequestHedger(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(hedger, "enabled", true);
+        ReflectionTestUtils.setField(hedger, "percentile", 0.95);
+        ReflectionTestUtils.setField(hedger, "minSamples", 3);
+        ReflectionTestUtils.setField(hedger, "minDelayMs", HEDGE_DELAY_MS);
+        for (int i = 0; i < 3; i++) {
+            hedger.execute("analysis", () -> Mono.just("calentamiento")).block(Duration.ofSeconds(1));
+        }
+    }
+
+    @Test
+    void fastPrimaryErrorIsPropagatedWithoutHedging() {
+        IllegalStateException rejected = new IllegalStateException("429 Too Many Requests");
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> hedger.execute("analysis", counting(() -> Mono.<String>error(rejected)))
+                .block(Duration.ofSeconds(5)))
+                .isSameAs(rejected);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(HEDGE_DELAY_MS));
+        // Pasado el umbral tampoco se lanza el respaldo: quedó cancelado con el error
+        sleep(HEDGE_DELAY_MS * 2);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void primaryErrorAfterHedgeStartedWinsOverPendingHedge() {
+        IllegalStateException rejected = new IllegalStateException("respuesta ilegible");
+        AtomicInteger attempt = new AtomicInteger();
+
+        assertThatThrownBy(() -> hedger.execute("analysis", counting(() -> attempt.getAndIncrement() == 0
+                        ? Mono.delay(Duration.ofMillis(HEDGE_DELAY_MS * 2)).then(Mono.<String>error(rejected))
+                        : Mono.delay(Duration.ofSeconds(5)).thenReturn("respaldo")))
+                .block(Duration.ofSeconds(3)))
+                .isSameAs(rejected);
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndFirstSuccessWins() {
+        AtomicInteger attempt = new AtomicInteger();
+
+        String result = hedger.execute("analysis", counting(() -> attempt.getAndIncrement() == 0
+                        ? Mono.delay(Duration.ofSeconds(5)).thenReturn("principal")
+                        : Mono.just("respaldo")))
+                .block(Duration.ofSeconds(3));
+
+        assertThat(result).isEqualTo("respaldo");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failingHedgeDoesNotMaskPrimarySuccess() {
+        AtomicInteger attempt = new AtomicInteger();
+
+        String result = hedger.execute("analysis", counting(() -> attempt.getAndIncrement() == 0
+                        ? Mono.delay(Duration.ofMillis(HEDGE_DELAY_MS * 3)).thenReturn("principal")
+                        : Mono.<String>error(new IllegalStateException("503"))))
+                .block(Duration.ofSeconds(3));
+
+        assertThat(result).isEqualTo("principal");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sampleCounterKeepsWorkingPastIntegerRange() {
+        Map<String, ?> windows = (Map<String, ?>) ReflectionTestUtils.getField(hedger, "windows");
+        AtomicLong count = (AtomicLong) ReflectionTestUtils.getField(windows.get("analysis"), "count");
+        count.set(Integer.MAX_VALUE - 1L);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(hedger.execute("analysis", () -> Mono.just("ok")).block(Duration.ofSeconds(1))).isEqualTo("ok");
+        }
+        assertThat(count.get()).isGreaterThan(Integer.MAX_VALUE);
+    }
+
+    private <T> Supplier<Mono<T>> counting(Supplier<Mono<T>> call) {
+        return () -> {
+            calls.incrementAndGet();
+            return call.get();
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
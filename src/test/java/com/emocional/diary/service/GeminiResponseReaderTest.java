@@ -0,0 +1,60 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiResponseReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void extractsFirstCandidateTextAcrossArbitraryBufferBoundaries() throws Exception {
+        String body = """
+                {"candidates": [
+                  {"content": {"parts": [{"text": "```json\\n{\\"emotion\\": \\"alegría\\", \\"intensity\\": 7, "},
+                                          {"text": "\\"summary\\": \\"Bien\\", \\"keywords\\": [\\"sol\\"]}\\n```"}]},
+                   "finishReason": "STOP"},
+                  {"content": {"parts": [{"text": "ignorado"}]}}
+                ],
+                "usageMetadata": {"totalTokenCount": 10}}
+                """;
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        // Fragmentos de 7 bytes: cortan cadenas, escapes y caracteres multibyte
+        GeminiResponseReader reader = new GeminiResponseReader(objectMapper.getFactory());
+        for (int i = 0; i < bytes.length; i += 7) {
+            reader.feed(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + 7))));
+        }
+        GeminiResponseReader.Content content = reader.finish();
+
+        assertTrue(content.hasCandidates());
+        assertTrue(content.hasContent());
+        assertEquals("STOP", content.finishReason());
+        GeminiAnalysisResponse parsed = objectMapper.readValue(content.jsonReader(), GeminiAnalysisResponse.class);
+        assertEquals("alegría", parsed.getEmotion());
+        assertEquals(7, parsed.getIntensity());
+        assertEquals("sol", parsed.getKeywords().get(0));
+    }
+
+    @Test
+    void reportsBlockedPromptWithoutCandidates() {
+        GeminiResponseReader reader = new GeminiResponseReader(objectMapper.getFactory());
+        reader.feed(DefaultDataBufferFactory.sharedInstance.wrap(
+                "{\"promptFeedback\": {\"blockReason\": \"SAFETY\"}}".getBytes(StandardCharsets.UTF_8)));
+        GeminiResponseReader.Content content = reader.finish();
+
+        assertFalse(content.hasCandidates());
+        assertEquals("SAFETY", content.blockReason());
+        assertNull(content.jsonReader());
+    }
+}
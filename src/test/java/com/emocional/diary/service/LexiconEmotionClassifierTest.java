@@ -0,0 +1,48 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.gemini.GeminiAnalysisResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LexiconEmotionClassifierTest {
+
+    private final LexiconEmotionClassifier classifier = new LexiconEmotionClassifier();
+
+    @Test
+    void detectsDominantEmotionIgnoringCaseAndAccents() {
+        GeminiAnalysisResponse result = classifier.analyze(
+                "ESTOY MUY ANSIOSO por la presentación de mañana, me siento agobiado y preocupado.");
+
+        assertThat(result.getEmotion()).isEqualTo("ansiedad");
+        assertThat(result.getIntensity()).isBetween(6, 10);
+        assertThat(result.getKeywords()).hasSize(2).doesNotHaveDuplicates();
+        assertThat(result.getSummary()).isNotBlank();
+    }
+
+    @Test
+    void negationCancelsTheFollowingMatch() {
+        GeminiAnalysisResponse result = classifier.analyze(
+                "No estoy feliz con cómo terminó la semana, me siento triste y algo decepcionado.");
+
+        assertThat(result.getEmotion()).isEqualTo("tristeza");
+    }
+
+    @Test
+    void textWithoutLexiconMatchesIsNeutralWithLowConfidence() {
+        String text = "Fui a la tienda, compré verduras y luego ordené el escritorio de la oficina.";
+
+        assertThat(classifier.analyze(text).getEmotion()).isEqualTo(LexiconEmotionClassifier.NEUTRAL);
+        assertThat(classifier.analyze(text).getKeywords()).hasSize(2);
+        assertThat(classifier.preClassify(text).confidence()).isZero();
+    }
+
+    @Test
+    void clearTextHasHighConfidence() {
+        var classification = classifier.preClassify(
+                "Hoy estoy feliz y muy contento, disfruté muchísimo la tarde con mis amigos.");
+
+        assertThat(classification.emotion()).isEqualTo("alegría");
+        assertThat(classification.confidence()).isGreaterThan(0.6f);
+    }
+}
@@ -0,0 +1,46 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.dto.gemini.GeminiRecommendationResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecommendationStreamParserTest {
+
+    @Test
+    void emitsEachRecommendationAsSoonAsItCloses() {
+        RecommendationStreamParser parser = new RecommendationStreamParser(new ObjectMapper());
+
+        assertTrue(parser.feed("```json\n{\"recommendations\": [{\"title\": \"Camina\", \"descr").isEmpty());
+        List<GeminiRecommendationResponse.Recommendation> first =
+                parser.feed("iption\": \"Sal {a} caminar\", \"category\": \"ejercicio\"}, {\"title\": \"Res");
+        assertEquals(1, first.size());
+        assertEquals("Sal {a} caminar", first.get(0).getDescription());
+
+        List<GeminiRecommendationResponse.Recommendation> second =
+                parser.feed("pira\", \"description\": \"Di \\\"hola\\\"\", \"category\": \"mindfulness\"}]}\n```");
+        assertEquals(1, second.size());
+        assertEquals("Respira", second.get(0).getTitle());
+        assertEquals("Di \"hola\"", second.get(0).getDescription());
+    }
+
+    @Test
+    void handlesCharacterByCharacterChunks() {
+        RecommendationStreamParser parser = new RecommendationStreamParser(new ObjectMapper());
+        String json = "[{\"title\":\"A\",\"priority\":\"high\"},{\"title\":\"B\"}]";
+
+        List<GeminiRecommendationResponse.Recommendation> all = new ArrayList<>();
+        for (char c : json.toCharArray()) {
+            all.addAll(parser.feed(String.valueOf(c)));
+        }
+
+        assertEquals(2, all.size());
+        assertEquals("high", all.get(0).getPriority());
+        assertEquals("B", all.get(1).getTitle());
+    }
+}
@@ -0,0 +1,53 @@
+package com.emocional.diary.service;
+
+import com.emocional.diary.repository.UserWorryCountRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class WorryCounterServiceTest {
+
+    private final UserWorryCountRepository repository = mock(UserWorryCountRepository.class);
+    private final WorryCounterService service = new WorryCounterService(repository);
+
+    @Test
+    void newEntryIncrementsItsWorry() {
+        service.onWorryChanged(1L, null, "Trabajo");
+
+        verify(repository).increment(1L, "Trabajo");
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void changedWorryMovesOneEntryBetweenCounters() {
+        service.onWorryChanged(1L, "Trabajo", "Estudios");
+
+        var order = inOrder(repository);
+        order.verify(repository).decrement(1L, "Trabajo");
+        order.verify(repository).deleteIfEmpty(1L, "Trabajo");
+        order.verify(repository).increment(1L, "Estudios");
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void unchangedOrUncountedWorriesAreIgnored() {
+        service.onWorryChanged(1L, "Trabajo", "Trabajo");
+        service.onWorryChanged(1L, null, "Ninguna");
+        service.onWorryChanged(1L, "  ", null);
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void switchingToNoWorryOnlyDecrements() {
+        service.onWorryChanged(1L, "Trabajo", "Ninguna");
+
+        verify(repository).decrement(1L, "Trabajo");
+        verify(repository).deleteIfEmpty(1L, "Trabajo");
+        verifyNoMoreInteractions(repository);
+    }
+}
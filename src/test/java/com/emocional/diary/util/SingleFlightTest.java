@@ -0,0 +1,120 @@
+package com.emocional.diary.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute(1L, () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "resultado";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                followers.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                    executions.incrementAndGet();
+                    return "otro";
+                })));
+            }
+            // Dar tiempo a que los seguidores se unan al cálculo en curso
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("resultado", leader.get(5, TimeUnit.SECONDS));
+            for (Future<String> follower : followers) {
+                assertEquals("resultado", follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+            assertEquals(0, singleFlight.inFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void followersReceiveTheLeaderException() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute(7L, () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("Gemini no disponible");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> follower = executor.submit(() -> singleFlight.execute(7L, () -> "no debería ejecutarse"));
+            // Dar tiempo a que el seguidor se una al cálculo en curso
+            Thread.sleep(100);
+            release.countDown();
+
+            Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertTrue(leaderError.getCause() instanceof IllegalStateException);
+            Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertTrue(followerError.getCause() instanceof IllegalStateException);
+            assertEquals("Gemini no disponible", followerError.getCause().getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void asyncCallersShareOneComputationWithoutBlocking() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<String> gemini = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = singleFlight.executeAsync(3L, () -> {
+            executions.incrementAndGet();
+            return gemini;
+        });
+        CompletableFuture<String> follower = singleFlight.executeAsync(3L, () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture("otro");
+        });
+        assertFalse(follower.isDone());
+        assertEquals(1, singleFlight.inFlightCount());
+
+        gemini.complete("resultado");
+
+        assertEquals("resultado", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("resultado", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}